@@ -0,0 +1,37 @@
+package karev.pavel.sokoban;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+// Shipped levels are addressed as "level_N", the fixed benchmark sets as "bench#N" and "standard#N"
+@UtilityClass
+class BenchmarkLevels {
+
+    static Level load(String name) {
+        int separator = name.indexOf('#');
+        if (separator > 0) {
+            var set = name.substring(0, separator);
+            var entries = LevelCollection.parse(set, readResource(String.format("levels/%s.xsb", set)));
+            return entries.get(Integer.parseInt(name.substring(separator + 1)) - 1).parse();
+        }
+        return Level.parseLevel(readResource(String.format("levels/%s.txt", name)));
+    }
+
+    @SneakyThrows
+    private static List<String> readResource(String name) {
+        var stream = BenchmarkLevels.class.getClassLoader().getResourceAsStream(name);
+        if (Objects.isNull(stream)) {
+            throw new FileNotFoundException(name);
+        }
+        try (var reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
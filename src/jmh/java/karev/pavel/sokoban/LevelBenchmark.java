@@ -0,0 +1,113 @@
+package karev.pavel.sokoban;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+ * Hot paths of a single solver step. Run with
+ *   mvn -Pbenchmarks package && java -jar target/benchmarks.jar -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelBenchmark {
+
+    @Param({"level_1", "level_2", "bench#1", "bench#2", "bench#3", "bench#4",
+        "standard#1", "standard#2", "standard#3", "standard#4", "standard#5", "standard#6"})
+    private String levelName;
+
+    private Level level;
+    private Level movingLevel;
+    private Position playerStart;
+    private Position playerStep;
+    private karev.pavel.sokoban.State pushState;
+    private Layout layout;
+    private Position farthest;
+    private Node expandedNode;
+
+    @Setup
+    public void setUp() {
+        level = BenchmarkLevels.load(levelName);
+
+        movingLevel = new Level(level);
+        playerStart = new Position(movingLevel.getPlayer().getPosition());
+        layout = Layout.of(level);
+        var grid = layout.getGrid();
+        playerStep = layout.availableMoves()
+            .stream()
+            .map(direction -> grid.neighbour(layout.getPlayer(), direction))
+            .filter(cell -> !layout.isBox(cell))
+            .map(grid::position)
+            .findFirst()
+            .orElseThrow();
+
+        var distances = grid.distancesFrom(layout.getPlayer());
+        var reachable = layout.reachable();
+        var far = layout.getPlayer();
+        for (int cell = reachable.nextSetBit(0); cell >= 0; cell = reachable.nextSetBit(cell + 1)) {
+            if (distances[cell] > distances[far]) {
+                far = cell;
+            }
+        }
+        farthest = grid.position(far);
+
+        var rootLayout = new Layout(layout);
+        rootLayout.normalize();
+        pushState = new karev.pavel.sokoban.State(rootLayout);
+
+        expandedNode = new Node(new karev.pavel.sokoban.State(rootLayout));
+        pushState.getAllPushStates().forEach(state -> {
+            var child = new Node(state);
+            child.setParent(expandedNode);
+            expandedNode.getChildArray().add(child);
+            state.incrementVisit();
+        });
+        expandedNode.getState().incrementVisit();
+    }
+
+    @Benchmark
+    public Level levelCopy() {
+        return new Level(level);
+    }
+
+    @Benchmark
+    public Level performMove() {
+        movingLevel.performMove(playerStep);
+        movingLevel.performMove(playerStart);
+        return movingLevel;
+    }
+
+    @Benchmark
+    public List<karev.pavel.sokoban.State> allPossibleStates() {
+        return pushState.getAllPossibleStates(SearchMode.PUSH);
+    }
+
+    @Benchmark
+    public List<Position> pathFinder() {
+        return Utils.pathFinder(layout.getPlayerPosition(), farthest, layout);
+    }
+
+    @Benchmark
+    public Node bestChildNode() {
+        return expandedNode.getBestChildNode();
+    }
+
+    @Benchmark
+    public Node findBestNodeWithUCT() {
+        return UCT.findBestNodeWithUCT(expandedNode);
+    }
+}
@@ -0,0 +1,50 @@
+package karev.pavel.sokoban;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import karev.pavel.sokoban.ParallelMctsSolver.Parallelism;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Whole MCTS solves spread over threads, compare with SolverBenchmark.solveLevelMcts
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSolverBenchmark {
+
+    @Param({"level_1", "level_2", "bench#1", "bench#2", "bench#3", "bench#4",
+        "standard#1", "standard#2", "standard#3", "standard#4", "standard#5", "standard#6"})
+    private String levelName;
+
+    @Param({"ROOT", "TREE"})
+    private Parallelism parallelism;
+
+    @Param({"2", "4"})
+    private int searchThreads;
+
+    private Level level;
+    private Solver solver;
+
+    @Setup
+    public void setUp() {
+        level = BenchmarkLevels.load(levelName);
+        solver = new ParallelMctsSolver(parallelism, searchThreads);
+    }
+
+    @Benchmark
+    public Optional<Solution> solveLevelParallelMcts() {
+        return solver.solve(level);
+    }
+}
@@ -0,0 +1,64 @@
+package karev.pavel.sokoban;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Whole solves, the numbers to compare before and after a solver change
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+    @Param({"level_1", "level_2", "bench#1", "bench#2", "bench#3", "bench#4",
+        "standard#1", "standard#2", "standard#3", "standard#4", "standard#5", "standard#6"})
+    private String levelName;
+
+    private Level level;
+    private Solver mcts;
+    private Solver aStar;
+    private Solver arena;
+    private Solver bidirectional;
+
+    @Setup
+    public void setUp() {
+        level = BenchmarkLevels.load(levelName);
+        mcts = new MctsSolver();
+        aStar = new AStarSolver();
+        arena = new ArenaMctsSolver();
+        bidirectional = new BidirectionalSolver();
+    }
+
+    @Benchmark
+    public Optional<Solution> solveLevelMcts() {
+        return mcts.solve(level);
+    }
+
+    @Benchmark
+    public Optional<Solution> solveLevelMctsArena() {
+        return arena.solve(level);
+    }
+
+    @Benchmark
+    public Optional<Solution> solveLevelAStar() {
+        return aStar.solve(level);
+    }
+
+    @Benchmark
+    public Optional<Solution> solveLevelBidirectional() {
+        return bidirectional.solve(level);
+    }
+}
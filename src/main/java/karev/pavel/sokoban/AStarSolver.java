@@ -0,0 +1,128 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import lombok.Getter;
+
+/*
+ * Best-first search over normalized push states. With an admissible estimate
+ * the first completed state taken from the queue uses the fewest pushes.
+ */
+public class AStarSolver implements Solver {
+
+    private final SearchLimits limits;
+
+    public AStarSolver() {
+        this(SearchLimits.NONE);
+    }
+
+    public AStarSolver(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    @Getter
+    private static class SearchNode {
+        private final Layout layout;
+        // The closed set is keyed by the canonical layout, mirrored states are expanded once
+        private final Layout key;
+        private final SearchNode parent;
+        private final int pushes;
+        private final int estimate;
+
+        SearchNode(Layout layout, SearchNode parent, int pushes, int estimate) {
+            this(layout, key(layout), parent, pushes, estimate);
+        }
+
+        SearchNode(Layout layout, Layout key, SearchNode parent, int pushes, int estimate) {
+            this.layout = layout;
+            this.key = key;
+            this.parent = parent;
+            this.pushes = pushes;
+            this.estimate = estimate;
+        }
+
+        int cost() {
+            return pushes + estimate;
+        }
+    }
+
+    @Override
+    public Optional<Solution> solve(Level level) {
+        var metrics = SolverMetrics.global();
+        var event = metrics.solveStarted();
+        var solution = search(level, metrics);
+        metrics.solveFinished(event, "astar", solution);
+        return solution;
+    }
+
+    private Optional<Solution> search(Level level, SolverMetrics metrics) {
+        long startNanos = System.nanoTime();
+        var start = Layout.of(level);
+        var root = new Layout(start);
+        root.normalize();
+
+        var open = new PriorityQueue<>(Comparator
+            .comparingInt(SearchNode::cost)
+            .thenComparingInt(SearchNode::getEstimate));
+        Map<Layout, Integer> bestPushes = new HashMap<>();
+        var heuristic = root.getGrid().getHeuristic();
+        var rootNode = new SearchNode(root, null, 0, heuristic.estimate(root));
+        open.add(rootNode);
+        bestPushes.put(rootNode.getKey(), 0);
+        long expandedNodes = 0;
+
+        while (!open.isEmpty()) {
+            if (limits.isExceeded(expandedNodes, startNanos)) {
+                return Optional.empty();
+            }
+            var current = open.poll();
+            if (bestPushes.getOrDefault(current.getKey(), Integer.MAX_VALUE) < current.getPushes()) {
+                continue;
+            }
+            if (current.getLayout().isCompleted()) {
+                return Optional.of(Solution.ofPushes(start, layouts(current), expandedNodes));
+            }
+
+            expandedNodes++;
+            metrics.nodeExpanded();
+            limits.reportDepth(current.getPushes());
+            metrics.depth(current.getPushes());
+            for (State child : new State(current.getLayout()).getAllPushStates()) {
+                var layout = child.getLayout();
+                var key = key(layout);
+                int pushes = current.getPushes() + 1;
+                if (bestPushes.getOrDefault(key, Integer.MAX_VALUE) <= pushes) {
+                    metrics.transpositionHit();
+                    continue;
+                }
+                int estimate = heuristic.estimate(layout);
+                if (estimate == Heuristic.UNREACHABLE) {
+                    continue;
+                }
+                bestPushes.put(key, pushes);
+                metrics.nodeCreated();
+                open.add(new SearchNode(layout, key, current, pushes, estimate));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Layout key(Layout layout) {
+        return layout.getGrid().symmetryCount() == 0 ? layout : layout.canonical(layout.reachable());
+    }
+
+    private static List<Layout> layouts(SearchNode node) {
+        List<Layout> layouts = new ArrayList<>();
+        for (var current = node; current != null; current = current.getParent()) {
+            layouts.add(current.getLayout());
+        }
+        Collections.reverse(layouts);
+        return layouts;
+    }
+}
@@ -9,11 +9,12 @@ public class Actor {
     private final int SPACE = 20;
 
     private Position position;
-    private Image originalImage;
+    private final Sprite sprite;
     private Image scaledImage;
 
-    public Actor(int x, int y) {
+    public Actor(int x, int y, Sprite sprite) {
         this.position = new Position(x, y);
+        this.sprite = sprite;
     }
 
     public int x() {
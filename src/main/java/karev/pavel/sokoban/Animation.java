@@ -45,7 +45,6 @@ public abstract class Animation {
 
         var now = Instant.now();
         long timeleft = now.minus(animationStart.toEpochMilli(), unit.getBaseUnit()).toEpochMilli();
-        System.out.println();
         if (timeleft > this.timeleft) {
             onFireUp();
             animationStart = Instant.now();
@@ -56,9 +55,5 @@ public abstract class Animation {
             animationCompleted = true;
             onFinish();
         }
-
-        if (!animationCompleted) {
-            targetComponent.updateUI();
-        }
     }
 }
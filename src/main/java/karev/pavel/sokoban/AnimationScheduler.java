@@ -0,0 +1,47 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.Timer;
+
+/*
+ * One Swing timer drives every pending animation on the EDT. It ticks at a
+ * fixed frame budget while something is scheduled and stops when the list is
+ * empty, so an idle board costs no CPU. Animations only ask for repaints, the
+ * RepaintManager coalesces them into one paint per frame.
+ */
+public class AnimationScheduler {
+
+    private static final int FRAME_BUDGET_MILLIS = 16;
+
+    private final List<Animation> animations = new ArrayList<>();
+    private final Timer timer = new Timer(FRAME_BUDGET_MILLIS, event -> tick());
+
+    public void schedule(Animation animation) {
+        animations.add(animation);
+        if (!timer.isRunning()) {
+            timer.start();
+        }
+    }
+
+    public void cancelAll() {
+        animations.clear();
+        timer.stop();
+    }
+
+    public boolean isIdle() {
+        return animations.isEmpty();
+    }
+
+    private void tick() {
+        for (Animation animation : new ArrayList<>(animations)) {
+            animation.fireUp();
+            if (animation.isAnimationCompleted()) {
+                animations.remove(animation);
+            }
+        }
+        if (animations.isEmpty()) {
+            timer.stop();
+        }
+    }
+}
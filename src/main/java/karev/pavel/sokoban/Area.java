@@ -1,23 +1,12 @@
 package karev.pavel.sokoban;
 
-import java.awt.Image;
-import javax.swing.ImageIcon;
-
 public class Area extends Actor {
 
     public Area(Area area) {
-        super(area.x(), area.y());
-        initArea();
+        super(area.x(), area.y(), Sprite.AREA);
     }
 
     public Area(int x, int y) {
-        super(x, y);
-        initArea();
-    }
-
-    private void initArea() {
-        ImageIcon iicon = new ImageIcon(ClassLoader.getSystemResource("area.png"));
-        Image image = iicon.getImage();
-        setOriginalImage(image);
+        super(x, y, Sprite.AREA);
     }
 }
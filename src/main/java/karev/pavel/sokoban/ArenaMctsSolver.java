@@ -0,0 +1,197 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import karev.pavel.sokoban.SolverMetrics.Phase;
+import karev.pavel.sokoban.Utils.Direction;
+
+/*
+ * Push-mode MCTS over an ArenaTree. The only objects per iteration are the
+ * pushes listed during expansion, the tree itself is a handful of primitive
+ * arrays, so it can grow to tens of millions of nodes without GC pressure.
+ * Rewards are kept in [0, 1] so the UCT exploration term keeps its weight.
+ */
+public class ArenaMctsSolver implements Solver {
+
+    private static final int ROLLOUT_DEPTH = 20;
+    private static final double ROLLOUT_EPSILON = 0.1;
+
+    private final SearchLimits limits;
+    private final RolloutPolicy rolloutPolicy;
+    private final SolverMetrics metrics = SolverMetrics.global();
+
+    public ArenaMctsSolver() {
+        this(SearchLimits.NONE);
+    }
+
+    public ArenaMctsSolver(SearchLimits limits) {
+        this(limits, MctsSolver.DEFAULT_ROLLOUT_POLICY);
+    }
+
+    public ArenaMctsSolver(SearchLimits limits, RolloutPolicy rolloutPolicy) {
+        this.limits = limits;
+        this.rolloutPolicy = rolloutPolicy;
+    }
+
+    @Override
+    public Optional<Solution> solve(Level level) {
+        var event = metrics.solveStarted();
+        var solution = new Search(Layout.of(level)).run();
+        metrics.solveFinished(event, "mcts-arena", solution);
+        return solution;
+    }
+
+    private class Search {
+
+        private final long startNanos = System.nanoTime();
+        private final Layout start;
+        private final Layout root;
+        private final ArenaTree tree = new ArenaTree();
+        private final Layout scratch;
+        private final Layout child;
+        private final BitSet reachable;
+        private final BitSet childReachable;
+        private final int[] stack;
+        private final Rollout rollout = new Rollout(rolloutPolicy, ROLLOUT_DEPTH, ROLLOUT_EPSILON, new Random(0));
+        private long expandedNodes;
+
+        Search(Layout start) {
+            this.start = start;
+            this.root = MctsSolver.rootLayout(start, SearchMode.PUSH);
+            this.scratch = new Layout(root);
+            this.child = new Layout(root);
+            this.reachable = new BitSet(root.getGrid().size());
+            this.childReachable = new BitSet(root.getGrid().size());
+            this.stack = new int[root.getGrid().size()];
+        }
+
+        Optional<Solution> run() {
+            int rootNode = tree.addRoot(root.canonicalHash(root.reachable()));
+            if (root.isCompleted()) {
+                return Optional.of(solution(rootNode));
+            }
+            while (!tree.isStuck(rootNode)) {
+                if (limits.isExceeded(expandedNodes, startNanos)) {
+                    return Optional.empty();
+                }
+                // Phase 1 - Selection, the layout of the selected node is rebuilt on the scratch
+                long phaseStart = System.nanoTime();
+                scratch.copyFrom(root);
+                int node = rootNode;
+                var depth = 0;
+                while (tree.isExpanded(node)) {
+                    int next = UCT.findBestNodeWithUCT(tree, node);
+                    if (next == ArenaTree.NONE) {
+                        tree.setStuck(node);
+                        break;
+                    }
+                    replay(scratch, tree.getMove(next));
+                    node = next;
+                    depth++;
+                }
+                limits.reportDepth(depth);
+                metrics.depth(depth);
+                phaseStart = endPhase(Phase.SELECTION, phaseStart);
+                if (tree.isStuck(node)) {
+                    backPropagation(node, 0);
+                    continue;
+                }
+
+                // Phase 2 - Expansion
+                int completed = expand(node);
+                if (completed != ArenaTree.NONE) {
+                    return Optional.of(solution(completed));
+                }
+                phaseStart = endPhase(Phase.EXPANSION, phaseStart);
+                int leaf = UCT.findBestNodeWithUCT(tree, node);
+                if (leaf == ArenaTree.NONE) {
+                    tree.setStuck(node);
+                    backPropagation(node, 0);
+                    continue;
+                }
+
+                // Phase 3 - Simulation
+                replay(scratch, tree.getMove(leaf));
+                double reward = (double) rollout.play(scratch) / Rollout.MAX_REWARD;
+                phaseStart = endPhase(Phase.SIMULATION, phaseStart);
+
+                // Phase 4 - Update
+                backPropagation(leaf, reward);
+                endPhase(Phase.BACKPROPAGATION, phaseStart);
+            }
+            return Optional.empty();
+        }
+
+        // Adds every push that survives the deadlock checks, returns a child that completes the level
+        private int expand(int node) {
+            scratch.reachable(reachable, stack);
+            for (Push push : scratch.availablePushes(reachable)) {
+                child.copyFrom(scratch);
+                child.performPush(push);
+                int movedBox = child.getGrid().neighbour(push.getBox(), push.getDirection());
+                child.reachable(childReachable, stack);
+                if (Deadlocks.isDeadlocked(child, movedBox, childReachable)) {
+                    metrics.deadlockPruned();
+                    continue;
+                }
+                child.normalize(childReachable);
+                int move = push.getBox() * Grid.MOVES.length + push.getDirection().ordinal();
+                // Keyed by the canonical hash, a mirror image of a state already in the tree is skipped
+                int added = tree.addChild(node, move, child.canonicalHash(childReachable));
+                if (added == ArenaTree.NONE) {
+                    metrics.transpositionHit();
+                    continue;
+                }
+                metrics.nodeCreated();
+                if (child.isCompleted()) {
+                    return added;
+                }
+            }
+            tree.setExpanded(node);
+            expandedNodes++;
+            metrics.nodeExpanded();
+            return ArenaTree.NONE;
+        }
+
+        private void replay(Layout layout, int move) {
+            int box = move / Grid.MOVES.length;
+            Direction direction = Grid.MOVES[move % Grid.MOVES.length];
+            layout.performPush(box, direction);
+            layout.normalize(layout.reachable(reachable, stack));
+        }
+
+        private void backPropagation(int node, double reward) {
+            for (int current = node; current != ArenaTree.NONE; current = tree.getParent(current)) {
+                tree.update(current, reward);
+            }
+        }
+
+        private long endPhase(Phase phase, long phaseStart) {
+            long now = System.nanoTime();
+            metrics.phase(phase, now - phaseStart);
+            return now;
+        }
+
+        private Solution solution(int node) {
+            List<Integer> pushes = new ArrayList<>();
+            for (int current = node; tree.getParent(current) != ArenaTree.NONE; current = tree.getParent(current)) {
+                pushes.add(tree.getMove(current));
+            }
+            Collections.reverse(pushes);
+
+            List<Layout> layouts = new ArrayList<>();
+            var current = new Layout(root);
+            layouts.add(current);
+            for (int move : pushes) {
+                current = new Layout(current);
+                replay(current, move);
+                layouts.add(current);
+            }
+            return MctsSolver.toSolution(SearchMode.PUSH, start, layouts, expandedNodes);
+        }
+    }
+}
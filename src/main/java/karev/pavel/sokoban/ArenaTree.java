@@ -0,0 +1,167 @@
+package karev.pavel.sokoban;
+
+import java.util.Arrays;
+
+/*
+ * MCTS tree as struct-of-arrays: a node is an int index into growable
+ * primitive arrays, children are linked through first-child and next-sibling
+ * indices. Nodes keep the push that leads to them instead of a layout, the
+ * search replays pushes from the root while it descends. Every state hash is
+ * kept in an open-addressing set so a position enters the tree only once.
+ */
+public class ArenaTree {
+
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    private static final byte EXPANDED = 1;
+    private static final byte STUCK = 2;
+
+    private int size;
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChildren = new int[INITIAL_CAPACITY];
+    private int[] nextSiblings = new int[INITIAL_CAPACITY];
+    private int[] moves = new int[INITIAL_CAPACITY];
+    private int[] visits = new int[INITIAL_CAPACITY];
+    private double[] scores = new double[INITIAL_CAPACITY];
+    private long[] stateHashes = new long[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+
+    private long[] seen = new long[INITIAL_CAPACITY * 2];
+    private int seenSize;
+
+    public int addRoot(long stateHash) {
+        if (size != 0) {
+            throw new IllegalStateException("Root already added");
+        }
+        markSeen(stateHash);
+        return add(NONE, NONE, stateHash);
+    }
+
+    // Returns NONE when the state is already somewhere in the tree
+    public int addChild(int parent, int move, long stateHash) {
+        if (!markSeen(stateHash)) {
+            return NONE;
+        }
+        int node = add(parent, move, stateHash);
+        nextSiblings[node] = firstChildren[parent];
+        firstChildren[parent] = node;
+        return node;
+    }
+
+    private int add(int parent, int move, long stateHash) {
+        if (size == parents.length) {
+            grow();
+        }
+        int node = size++;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        moves[node] = move;
+        stateHashes[node] = stateHash;
+        return node;
+    }
+
+    private void grow() {
+        int capacity = parents.length * 2;
+        parents = Arrays.copyOf(parents, capacity);
+        firstChildren = Arrays.copyOf(firstChildren, capacity);
+        nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+        moves = Arrays.copyOf(moves, capacity);
+        visits = Arrays.copyOf(visits, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+        stateHashes = Arrays.copyOf(stateHashes, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+    }
+
+    // Zero marks a free slot, a zero hash is stored as one
+    private boolean markSeen(long stateHash) {
+        if (seenSize * 2 >= seen.length) {
+            rehash();
+        }
+        long key = stateHash == 0 ? 1 : stateHash;
+        int mask = seen.length - 1;
+        for (int slot = mix(key) & mask; ; slot = (slot + 1) & mask) {
+            if (seen[slot] == key) {
+                return false;
+            }
+            if (seen[slot] == 0) {
+                seen[slot] = key;
+                seenSize++;
+                return true;
+            }
+        }
+    }
+
+    private void rehash() {
+        var old = seen;
+        seen = new long[old.length * 2];
+        int mask = seen.length - 1;
+        for (long key : old) {
+            if (key != 0) {
+                int slot = mix(key) & mask;
+                while (seen[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                seen[slot] = key;
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        return (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+    }
+
+    public void update(int node, double reward) {
+        visits[node]++;
+        scores[node] += reward;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    public int getFirstChild(int node) {
+        return firstChildren[node];
+    }
+
+    public int getNextSibling(int node) {
+        return nextSiblings[node];
+    }
+
+    public int getMove(int node) {
+        return moves[node];
+    }
+
+    public int getVisits(int node) {
+        return visits[node];
+    }
+
+    public double getScore(int node) {
+        return scores[node];
+    }
+
+    public long getStateHash(int node) {
+        return stateHashes[node];
+    }
+
+    public boolean isExpanded(int node) {
+        return (flags[node] & EXPANDED) != 0;
+    }
+
+    public void setExpanded(int node) {
+        flags[node] |= EXPANDED;
+    }
+
+    public boolean isStuck(int node) {
+        return (flags[node] & STUCK) != 0;
+    }
+
+    public void setStuck(int node) {
+        flags[node] |= STUCK;
+    }
+}
@@ -1,6 +1,5 @@
 package karev.pavel.sokoban;
 
-import javax.swing.ImageIcon;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,19 +8,10 @@ import lombok.Setter;
 public class Baggage extends Actor {
 
     public Baggage(Baggage baggage) {
-        super(baggage.x(), baggage.y());
-        initBaggage();
+        super(baggage.x(), baggage.y(), Sprite.BAGGAGE);
     }
 
     public Baggage(int x, int y) {
-        super(x, y);
-        initBaggage();
-    }
-
-    private void initBaggage() {
-        
-        var iicon = new ImageIcon(ClassLoader.getSystemResource("baggage.png"));
-        var image = iicon.getImage();
-        setOriginalImage(image);
+        super(x, y, Sprite.BAGGAGE);
     }
 }
@@ -0,0 +1,292 @@
+package karev.pavel.sokoban;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import karev.pavel.sokoban.ParallelMctsSolver.Parallelism;
+import lombok.Getter;
+
+/*
+ * Headless entry point: solves every level of a directory or collection file
+ * on a worker pool and writes one CSV or JSON record per level. Files ending
+ * in .skb are read as binary levels, see BinaryLevels.
+ *
+ *   BatchSolver <dir|file> [--threads N] [--solver astar|mcts|mcts-root|mcts-tree|arena|bidirectional]
+ *               [--search-threads N] [--timeout SECONDS] [--max-nodes N] [--format csv|json] [--out FILE]
+ *               [--cache DIR|none]
+ *
+ * --threads sizes the pool of levels solved at once, --search-threads the
+ * threads each mcts-root or mcts-tree solve runs on.
+ *
+ * Solutions are looked up in and added to a SolutionCache, by default the one
+ * under sokoban.cache.dir and kept per solver, so an unchanged corpus is not
+ * solved twice. Cache hits are marked in the cached column.
+ */
+public class BatchSolver {
+
+    enum Format {
+        CSV,
+        JSON
+    }
+
+    enum Outcome {
+        SOLVED,
+        UNSOLVED,
+        ERROR
+    }
+
+    @Getter
+    static class Result {
+        private final String level;
+        private final Outcome outcome;
+        private final int moves;
+        private final int pushes;
+        private final long expandedNodes;
+        private final long millis;
+        private final boolean cached;
+        private final String solution;
+
+        Result(String level, Outcome outcome, int moves, int pushes, long expandedNodes, long millis, String solution) {
+            this(level, outcome, moves, pushes, expandedNodes, millis, false, solution);
+        }
+
+        Result(String level, Outcome outcome, int moves, int pushes, long expandedNodes, long millis, boolean cached,
+               String solution) {
+            this.level = level;
+            this.outcome = outcome;
+            this.moves = moves;
+            this.pushes = pushes;
+            this.expandedNodes = expandedNodes;
+            this.millis = millis;
+            this.cached = cached;
+            this.solution = solution;
+        }
+    }
+
+    private Path source;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private String solverName = "astar";
+    private int searchThreads = Runtime.getRuntime().availableProcessors();
+    private Duration timeout = Duration.ofSeconds(60);
+    private long maxNodes = Long.MAX_VALUE;
+    private Format format = Format.CSV;
+    private Path out;
+    private String cache;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        var batch = new BatchSolver();
+        try {
+            batch.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchSolver <dir|file> [--threads N] [--solver astar|mcts|mcts-root|mcts-tree|arena|bidirectional]"
+                + " [--search-threads N] [--timeout SECONDS] [--max-nodes N] [--format csv|json] [--out FILE] [--cache DIR|none]");
+            System.exit(2);
+        }
+        batch.run();
+    }
+
+    private void parseArguments(String[] args) {
+        for (var i = 0; i < args.length; i++) {
+            var arg = args[i];
+            if (!arg.startsWith("--")) {
+                source = Paths.get(arg);
+                continue;
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+            var value = args[++i];
+            switch (arg) {
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--solver":
+                    solverName = value;
+                    break;
+                case "--search-threads":
+                    searchThreads = Integer.parseInt(value);
+                    break;
+                case "--timeout":
+                    timeout = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                    break;
+                case "--max-nodes":
+                    maxNodes = Long.parseLong(value);
+                    break;
+                case "--format":
+                    format = Format.valueOf(value.toUpperCase(Locale.ROOT));
+                    break;
+                case "--out":
+                    out = Paths.get(value);
+                    break;
+                case "--cache":
+                    cache = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (source == null) {
+            throw new IllegalArgumentException("No level directory or collection file given");
+        }
+    }
+
+    private Solver createSolver() {
+        var limits = new SearchLimits(maxNodes, timeout);
+        switch (solverName) {
+            case "astar":
+                return new AStarSolver(limits);
+            case "mcts":
+                return new MctsSolver(SearchMode.PUSH, limits);
+            case "mcts-root":
+                return new ParallelMctsSolver(Parallelism.ROOT, searchThreads, SearchMode.PUSH, limits);
+            case "mcts-tree":
+                return new ParallelMctsSolver(Parallelism.TREE, searchThreads, SearchMode.PUSH, limits);
+            case "arena":
+                return new ArenaMctsSolver(limits);
+            case "bidirectional":
+                return new BidirectionalSolver(limits);
+            default:
+                throw new IllegalArgumentException("Unknown solver " + solverName);
+        }
+    }
+
+    private SolutionCache openCache() throws IOException {
+        if ("none".equals(cache)) {
+            return null;
+        }
+        return cache == null ? SolutionCache.openDefault() : SolutionCache.open(Paths.get(cache));
+    }
+
+    private void run() throws IOException, InterruptedException {
+        var solver = createSolver();
+        var solutions = openCache();
+        var entries = collectLevels(source);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Result>> futures = new ArrayList<>(entries.size());
+        entries.forEach(entry -> futures.add(pool.submit(() -> solve(solver, solverName, solutions, entry))));
+        pool.shutdown();
+
+        List<Result> results = new ArrayList<>(futures.size());
+        for (var i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                results.add(new Result(entries.get(i).getName(), Outcome.ERROR, 0, 0, 0, 0, e.getCause().toString()));
+            }
+        }
+
+        if (out == null) {
+            write(results, System.out);
+        } else {
+            try (var stream = new PrintStream(Files.newOutputStream(out), false, "UTF-8")) {
+                write(results, stream);
+            }
+        }
+    }
+
+    private static List<LevelCollection.Entry> collectLevels(Path source) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return read(source);
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(source)) {
+            files = list.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        List<LevelCollection.Entry> entries = new ArrayList<>();
+        for (Path file : files) {
+            entries.addAll(read(file));
+        }
+        return entries;
+    }
+
+    private static List<LevelCollection.Entry> read(Path file) throws IOException {
+        if (file.getFileName().toString().endsWith(BinaryLevels.EXTENSION)) {
+            return BinaryLevels.open(file);
+        }
+        return LevelCollection.read(file);
+    }
+
+    // Cache hits are reported as cached, their nodes and time are those of the lookup
+    private static Result solve(Solver solver, String solverName, SolutionCache solutions, LevelCollection.Entry entry) {
+        long start = System.nanoTime();
+        try {
+            var level = entry.parse();
+            if (solutions != null) {
+                var cached = solutions.get(level, solverName);
+                if (cached.isPresent()) {
+                    var s = cached.get();
+                    return new Result(entry.getName(), Outcome.SOLVED, s.getMoves(), s.getPushes(), 0,
+                                      (System.nanoTime() - start) / 1_000_000, true, s.getLurd());
+                }
+            }
+            var solution = solver.solve(level);
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            if (solutions != null) {
+                solution.ifPresent(s -> solutions.put(level, solverName, s));
+            }
+            return solution
+                .map(s -> new Result(entry.getName(), Outcome.SOLVED, s.getMoves(), s.getPushes(), s.getExpandedNodes(),
+                                     millis, s.getLurd()))
+                .orElseGet(() -> new Result(entry.getName(), Outcome.UNSOLVED, 0, 0, 0, millis, ""));
+        } catch (RuntimeException e) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            return new Result(entry.getName(), Outcome.ERROR, 0, 0, 0, millis, e.toString());
+        }
+    }
+
+    private void write(List<Result> results, PrintStream stream) {
+        if (format == Format.JSON) {
+            stream.println("[");
+            for (var i = 0; i < results.size(); i++) {
+                var r = results.get(i);
+                stream.printf("  {\"level\": %s, \"status\": \"%s\", \"moves\": %d, \"pushes\": %d, \"nodes\": %d, "
+                                  + "\"millis\": %d, \"cached\": %b, \"solution\": %s}%s%n",
+                              jsonString(r.getLevel()), r.getOutcome(), r.getMoves(), r.getPushes(),
+                              r.getExpandedNodes(), r.getMillis(), r.isCached(), jsonString(r.getSolution()),
+                              i + 1 < results.size() ? "," : "");
+            }
+            stream.println("]");
+        } else {
+            stream.println("level,status,moves,pushes,nodes,millis,cached,solution");
+            results.forEach(r -> stream.printf("%s,%s,%d,%d,%d,%d,%b,%s%n",
+                                               csvField(r.getLevel()), r.getOutcome(), r.getMoves(), r.getPushes(),
+                                               r.getExpandedNodes(), r.getMillis(), r.isCached(), csvField(r.getSolution())));
+        }
+        stream.flush();
+    }
+
+    private static String csvField(String value) {
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+
+    private static String jsonString(String value) {
+        var answer = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                answer.append('\\').append(c);
+            } else if (c < 0x20) {
+                answer.append(String.format("\\u%04x", (int) c));
+            } else {
+                answer.append(c);
+            }
+        }
+        return answer.append('"').toString();
+    }
+}
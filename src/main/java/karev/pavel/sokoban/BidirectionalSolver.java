@@ -0,0 +1,225 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import lombok.Getter;
+
+/*
+ * Front-to-end bidirectional A*. The forward side pushes from the start and
+ * is ordered by the push estimate to the areas, the backward side pulls from
+ * the solved position and is ordered by the pull estimate back to the start
+ * boxes. A pulled layout whose boxes can no longer be matched to the start
+ * cells is dropped. Each step expands the side with the smaller open list.
+ * A layout reached from both sides joins the two halves, the search stops
+ * once no open layout can lead to a shorter joined path than the best one.
+ * The backward half read from the meeting point to the goal is a list of
+ * pushes, so the solution is built and played like any other push solution.
+ */
+public class BidirectionalSolver implements Solver {
+
+    private final SearchLimits limits;
+
+    public BidirectionalSolver() {
+        this(SearchLimits.NONE);
+    }
+
+    public BidirectionalSolver(SearchLimits limits) {
+        this.limits = limits;
+    }
+
+    @Getter
+    private static class SearchNode {
+        private final Layout layout;
+        private final SearchNode parent;
+        private final int pushes;
+        private final int estimate;
+
+        SearchNode(Layout layout, SearchNode parent, int pushes, int estimate) {
+            this.layout = layout;
+            this.parent = parent;
+            this.pushes = pushes;
+            this.estimate = estimate;
+        }
+
+        int cost() {
+            return pushes + estimate;
+        }
+    }
+
+    // One direction of the search: its estimate, open list and best push count per layout
+    private static class Side {
+        private final Heuristic heuristic;
+        private final PriorityQueue<SearchNode> open = new PriorityQueue<>(Comparator
+            .comparingInt(SearchNode::cost)
+            .thenComparingInt(SearchNode::getEstimate));
+        private final Map<Layout, SearchNode> best = new HashMap<>();
+
+        Side(Heuristic heuristic) {
+            this.heuristic = heuristic;
+        }
+
+        boolean add(Layout layout, SearchNode parent, int pushes) {
+            var known = best.get(layout);
+            if (known != null && known.getPushes() <= pushes) {
+                return false;
+            }
+            int estimate = heuristic.estimate(layout);
+            if (estimate == Heuristic.UNREACHABLE) {
+                return false;
+            }
+            var node = new SearchNode(layout, parent, pushes, estimate);
+            best.put(layout, node);
+            open.add(node);
+            return true;
+        }
+
+        // Drops entries a cheaper path has replaced since they were queued
+        SearchNode peek() {
+            while (!open.isEmpty() && best.get(open.peek().getLayout()) != open.peek()) {
+                open.poll();
+            }
+            return open.peek();
+        }
+
+        int lowestCost() {
+            var node = peek();
+            return node == null ? Integer.MAX_VALUE : node.cost();
+        }
+    }
+
+    @Override
+    public Optional<Solution> solve(Level level) {
+        var metrics = SolverMetrics.global();
+        var event = metrics.solveStarted();
+        var solution = search(level, metrics);
+        metrics.solveFinished(event, "bidirectional", solution);
+        return solution;
+    }
+
+    private Optional<Solution> search(Level level, SolverMetrics metrics) {
+        long startNanos = System.nanoTime();
+        var start = Layout.of(level);
+        var root = new Layout(start);
+        root.normalize();
+        if (root.isCompleted()) {
+            return Optional.of(Solution.ofPushes(start, List.of(root), 0));
+        }
+        var grid = root.getGrid();
+
+        var forward = new Side(grid.getHeuristic());
+        var backward = new Side(Heuristic.towards(grid, root.getBoxes().stream().toArray()));
+        forward.add(root, null, 0);
+        goalLayouts(root).forEach(goal -> backward.add(goal, null, 0));
+        boolean bidirectional = backward.peek() != null;
+
+        SearchNode meetForward = null;
+        SearchNode meetBackward = null;
+        int bestPushes = Integer.MAX_VALUE;
+        long expandedNodes = 0;
+        while (forward.peek() != null && (!bidirectional || backward.peek() != null)) {
+            int bound = bidirectional ? Math.max(forward.lowestCost(), backward.lowestCost()) : forward.lowestCost();
+            if (bestPushes <= bound) {
+                break;
+            }
+            if (limits.isExceeded(expandedNodes, startNanos)) {
+                return Optional.empty();
+            }
+            boolean backwards = bidirectional && backward.open.size() < forward.open.size();
+            var side = backwards ? backward : forward;
+            var other = backwards ? forward : backward;
+            var current = side.open.poll();
+            expandedNodes++;
+            metrics.nodeExpanded();
+            limits.reportDepth(current.getPushes());
+            metrics.depth(current.getPushes());
+
+            for (Layout child : backwards ? pulls(current.getLayout()) : pushes(current.getLayout())) {
+                int pushes = current.getPushes() + 1;
+                if (!side.add(child, current, pushes)) {
+                    metrics.transpositionHit();
+                    continue;
+                }
+                metrics.nodeCreated();
+                var node = side.best.get(child);
+                var match = other.best.get(child);
+                if (!bidirectional && child.isCompleted()) {
+                    match = new SearchNode(child, null, 0, 0);
+                }
+                if (match != null && pushes + match.getPushes() < bestPushes) {
+                    bestPushes = pushes + match.getPushes();
+                    meetForward = backwards ? match : node;
+                    meetBackward = backwards ? node : match;
+                }
+            }
+        }
+        if (meetForward == null) {
+            return Optional.empty();
+        }
+        return Optional.of(stitch(start, meetForward, bidirectional ? meetBackward.getParent() : null, expandedNodes));
+    }
+
+    /*
+     * Boxes on every area and the player normalized in each part of the floor
+     * next to a box, the player always ends beside the box of the last push.
+     * Floor out of reach of every box, such as indentation outside the walls,
+     * is skipped. None when boxes and areas do not match one to one, the
+     * forward side then searches alone.
+     */
+    private static List<Layout> goalLayouts(Layout root) {
+        var grid = root.getGrid();
+        List<Layout> answer = new ArrayList<>();
+        if (grid.getGoals().cardinality() != root.getBoxes().cardinality()) {
+            return answer;
+        }
+        var covered = (BitSet) grid.getWalls().clone();
+        covered.or(grid.getGoals());
+        for (int cell = covered.nextClearBit(0); cell < grid.size(); cell = covered.nextClearBit(cell + 1)) {
+            var goal = new Layout(grid, cell, (BitSet) grid.getGoals().clone());
+            var reachable = goal.reachable();
+            covered.or(reachable);
+            if (!goal.availablePulls(reachable).isEmpty()) {
+                goal.normalize(reachable);
+                answer.add(goal);
+            }
+        }
+        return answer;
+    }
+
+    private static List<Layout> pushes(Layout layout) {
+        List<Layout> answer = new ArrayList<>();
+        new State(layout).getAllPushStates().forEach(state -> answer.add(state.getLayout()));
+        return answer;
+    }
+
+    // Layouts behind a pull can always be solved, the pull estimate prunes the ones the start cannot reach
+    private static List<Layout> pulls(Layout layout) {
+        List<Layout> answer = new ArrayList<>();
+        for (Push pull : layout.availablePulls(layout.reachable())) {
+            var child = new Layout(layout);
+            child.performPull(pull);
+            child.normalize();
+            answer.add(child);
+        }
+        return answer;
+    }
+
+    // The forward half from the start up to the meeting layout, then the backward half after it to the goal
+    private static Solution stitch(Layout start, SearchNode forward, SearchNode backward, long expandedNodes) {
+        List<Layout> layouts = new ArrayList<>();
+        for (var node = forward; node != null; node = node.getParent()) {
+            layouts.add(node.getLayout());
+        }
+        Collections.reverse(layouts);
+        for (var node = backward; node != null; node = node.getParent()) {
+            layouts.add(node.getLayout());
+        }
+        return Solution.ofPushes(start, layouts, expandedNodes);
+    }
+}
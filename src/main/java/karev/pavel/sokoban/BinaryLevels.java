@@ -0,0 +1,284 @@
+package karev.pavel.sokoban;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.experimental.UtilityClass;
+
+/*
+ * Binary level files, big-endian:
+ *
+ *   file:     int magic 'SKBL', byte version, int level count, levels
+ *   level:    short height, short width, int player cell,
+ *             walls, areas and boxes as bitplanes of (height * width + 7) / 8 bytes
+ *   solution: int steps, 2 bits per step, four steps per byte from the low bits
+ *
+ * Cells are numbered x * width + y like Grid. Readers decode straight from the
+ * buffer with absolute reads, a mapped file is never copied. Solutions keep
+ * only directions, pushes are found again by replaying them on the level.
+ *
+ * Usage: BinaryLevels <input file|dir> <output.skb>
+ */
+@UtilityClass
+public class BinaryLevels {
+
+    public static final int MAGIC = 0x534B424C;
+    public static final byte VERSION = 1;
+    public static final String EXTENSION = ".skb";
+
+    private static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+    private static final String STEPS = "udlr";
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: BinaryLevels <input file|dir> <output" + EXTENSION + ">");
+            System.exit(2);
+        }
+        var count = convert(Paths.get(args[0]), Paths.get(args[1]));
+        System.out.println(count + " levels written to " + args[1]);
+    }
+
+    public static int convert(Path source, Path target) throws IOException {
+        List<LevelCollection.Entry> entries = new ArrayList<>();
+        if (Files.isDirectory(source)) {
+            try (Stream<Path> list = Files.list(source)) {
+                for (Path file : list.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                    entries.addAll(LevelCollection.read(file));
+                }
+            }
+        } else {
+            entries.addAll(LevelCollection.read(source));
+        }
+
+        try (var channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                            StandardOpenOption.TRUNCATE_EXISTING)) {
+            var header = ByteBuffer.allocate(HEADER_BYTES);
+            writeHeader(header, entries.size());
+            header.flip();
+            channel.write(header);
+            for (LevelCollection.Entry entry : entries) {
+                Level level;
+                try {
+                    level = entry.parse();
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(entry.getName() + ": " + e.getMessage(), e);
+                }
+                var buffer = ByteBuffer.allocate(levelBytes(level));
+                writeLevel(buffer, level);
+                buffer.flip();
+                channel.write(buffer);
+            }
+        }
+        return entries.size();
+    }
+
+    public static void writeHeader(ByteBuffer buffer, int levels) {
+        buffer.putInt(MAGIC).put(VERSION).putInt(levels);
+    }
+
+    public static int readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a binary level file");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary level version " + version);
+        }
+        return buffer.getInt();
+    }
+
+    public static int levelBytes(Level level) {
+        return levelBytes(level.getLevelHeight(), level.getLevelWidth());
+    }
+
+    private static int levelBytes(int height, int width) {
+        return Short.BYTES * 2 + Integer.BYTES + planeBytes(height, width) * 3;
+    }
+
+    private static int planeBytes(int height, int width) {
+        return (height * width + 7) / 8;
+    }
+
+    public static void writeLevel(ByteBuffer buffer, Level level) {
+        var grid = level.getGrid();
+        var map = level.getMap();
+        var walls = new BitSet(grid.size());
+        for (var x = 0; x < level.getLevelHeight(); x++) {
+            for (var y = 0; y < map[x].length; y++) {
+                if (map[x][y] == '#') {
+                    walls.set(grid.index(x, y));
+                }
+            }
+        }
+        var boxes = Layout.of(level).getBoxes();
+
+        buffer.putShort((short) grid.getHeight());
+        buffer.putShort((short) grid.getWidth());
+        buffer.putInt(grid.index(level.getPlayer().getPosition()));
+        int planeBytes = planeBytes(grid.getHeight(), grid.getWidth());
+        putPlane(buffer, walls, planeBytes);
+        putPlane(buffer, grid.getGoals(), planeBytes);
+        putPlane(buffer, boxes, planeBytes);
+    }
+
+    private static void putPlane(ByteBuffer buffer, BitSet plane, int planeBytes) {
+        var bytes = plane.toByteArray();
+        buffer.put(bytes);
+        for (var i = bytes.length; i < planeBytes; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    // Reads the level at the buffer position and moves the position past it
+    public static Level readLevel(ByteBuffer buffer) {
+        var level = readLevel(buffer, buffer.position());
+        buffer.position(buffer.position() + levelBytes(level));
+        return level;
+    }
+
+    /*
+     * Empty floor at the end of a row is left as '\0' like the text loader does
+     * for short rows, so a converted level renders and solves the same.
+     */
+    static Level readLevel(ByteBuffer buffer, int offset) {
+        int height = buffer.getShort(offset);
+        int width = buffer.getShort(offset + Short.BYTES);
+        int player = buffer.getInt(offset + Short.BYTES * 2);
+        int walls = offset + Short.BYTES * 2 + Integer.BYTES;
+        int planeBytes = planeBytes(height, width);
+        int goals = walls + planeBytes;
+        int boxes = goals + planeBytes;
+
+        var map = new char[height][width];
+        for (var x = 0; x < height; x++) {
+            int last = -1;
+            for (var y = 0; y < width; y++) {
+                int cell = x * width + y;
+                char c = cell(isSet(buffer, walls, cell), isSet(buffer, goals, cell), isSet(buffer, boxes, cell), cell == player);
+                map[x][y] = c;
+                if (c != ' ') {
+                    last = y;
+                }
+            }
+            Arrays.fill(map[x], last + 1, width, '\0');
+        }
+        return Level.ofMap(map, height, width);
+    }
+
+    private static char cell(boolean wall, boolean goal, boolean box, boolean player) {
+        if (wall) {
+            return '#';
+        }
+        if (box) {
+            return goal ? '*' : '$';
+        }
+        if (player) {
+            return goal ? '+' : '@';
+        }
+        return goal ? '.' : ' ';
+    }
+
+    private static boolean isSet(ByteBuffer buffer, int plane, int cell) {
+        return (buffer.get(plane + (cell >>> 3)) & (1 << (cell & 7))) != 0;
+    }
+
+    public static List<Level> readAll(ByteBuffer buffer) throws IOException {
+        int count = readHeader(buffer);
+        List<Level> levels = new ArrayList<>(count);
+        for (var i = 0; i < count; i++) {
+            levels.add(readLevel(buffer));
+        }
+        return levels;
+    }
+
+    /*
+     * Maps the file and walks the record headers once for the offset of every
+     * level, the levels themselves are decoded when an entry is parsed.
+     */
+    public static List<LevelCollection.Entry> open(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Level file is too large to map: " + path);
+            }
+            buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+        int count = readHeader(buffer);
+        var offsets = new int[count];
+        for (var i = 0; i < count; i++) {
+            offsets[i] = buffer.position();
+            int height = buffer.getShort(offsets[i]);
+            int width = buffer.getShort(offsets[i] + Short.BYTES);
+            buffer.position(offsets[i] + levelBytes(height, width));
+        }
+
+        var fileName = path.getFileName().toString();
+        var mapped = buffer;
+        return new AbstractList<>() {
+            @Override
+            public LevelCollection.Entry get(int index) {
+                var name = count == 1 ? fileName : fileName + "#" + (index + 1);
+                return new LevelCollection.Entry(name, () -> readLevel(mapped, offsets[index]));
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    public static int solutionBytes(String lurd) {
+        return Integer.BYTES + (lurd.length() + 3) / 4;
+    }
+
+    public static void writeSolution(ByteBuffer buffer, String lurd) {
+        buffer.putInt(lurd.length());
+        int packed = 0;
+        for (var i = 0; i < lurd.length(); i++) {
+            int step = STEPS.indexOf(Character.toLowerCase(lurd.charAt(i)));
+            if (step < 0) {
+                throw new IllegalArgumentException("Not a LURD step: " + lurd.charAt(i));
+            }
+            packed |= step << (i % 4 * 2);
+            if (i % 4 == 3) {
+                buffer.put((byte) packed);
+                packed = 0;
+            }
+        }
+        if (lurd.length() % 4 != 0) {
+            buffer.put((byte) packed);
+        }
+    }
+
+    // Pushes are upper case again once the steps have been replayed on the level
+    public static String readSolution(ByteBuffer buffer, Level level) {
+        return Solution.ofLurd(level, readSteps(buffer), 0).getLurd();
+    }
+
+    // Lower case LURD steps only, a push cannot be told from a walk without the level
+    public static String readSteps(ByteBuffer buffer) {
+        int steps = buffer.getInt();
+        var lurd = new StringBuilder(steps);
+        int packed = 0;
+        for (var i = 0; i < steps; i++) {
+            if (i % 4 == 0) {
+                packed = buffer.get();
+            }
+            lurd.append(STEPS.charAt(packed >>> (i % 4 * 2) & 3));
+        }
+        return lurd.toString();
+    }
+}
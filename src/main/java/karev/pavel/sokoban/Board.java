@@ -3,23 +3,34 @@ package karev.pavel.sokoban;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.temporal.ChronoField;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Stack;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import karev.pavel.sokoban.ParallelMctsSolver.Parallelism;
+import karev.pavel.sokoban.Utils.Direction;
 import javax.swing.JComponent;
 import javax.swing.JPanel;
-import karev.pavel.sokoban.Level.Status;
+import javax.swing.SwingUtilities;
 import lombok.SneakyThrows;
 
 public class Board extends JPanel {
@@ -27,8 +38,30 @@ public class Board extends JPanel {
 
     private int levelNumber;
     private static final int SPACE = 20;
+    private static final int PROGRESS_REFRESH_MILLIS = 200;
     private transient Level level;
-    private LinkedList<Animation> animations = new LinkedList<>();
+    private static final Duration SOLVE_TIMEOUT = Duration.ofMinutes(1);
+    // Picks the solver behind S and H by its BatchSolver name, so both share cached solutions
+    static final String SOLVER_PROPERTY = "sokoban.solver";
+    private static final String DEFAULT_SOLVER = "mcts";
+    // Threads of the mcts-root and mcts-tree solvers, all cores by default
+    static final String SEARCH_THREADS_PROPERTY = "sokoban.search.threads";
+    private static final ExecutorService SOLVER_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "board-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private transient SearchProgress solving;
+    private final transient LevelCollection levels;
+    // Keeps its tree between solves, the next S or H re-roots it at the position reached by manual moves
+    private final transient MctsSolver solver = new MctsSolver(SearchMode.PUSH, SearchLimits.NONE, MctsSolver.DEFAULT_ROLLOUT_POLICY, true);
+    private final transient String solverName = solverName();
+    private final transient SolutionCache solutions = openSolutionCache();
+    private final transient AnimationScheduler animations = new AnimationScheduler();
+    private int winGreen;
+    private final List<Actor> world = new ArrayList<>();
+    private transient BufferedImage background;
+    private int backgroundTile;
 
     enum Collision {
         LEFT_COLLISION,
@@ -38,6 +71,15 @@ public class Board extends JPanel {
     }
 
     public Board() throws IOException, URISyntaxException {
+        this(null);
+    }
+
+    // Levels come from the collection when one is given, otherwise from the bundled level_N.txt files
+    public Board(LevelCollection levels) throws IOException, URISyntaxException {
+        if (Objects.nonNull(levels) && levels.size() == 0) {
+            throw new IllegalArgumentException("The collection holds no levels");
+        }
+        this.levels = levels;
         var completedUrl = ClassLoader.getSystemResource("levels/completed.txt");
         List<String> completedLevels = Files.readAllLines(Paths.get(completedUrl.toURI()));
         levelNumber = 1;
@@ -45,168 +87,287 @@ public class Board extends JPanel {
             String[] split = completedLevels.get(0).split(",");
             levelNumber = Integer.getInteger(split[split.length - 1]);
         }
+        if (!hasLevel(levelNumber)) {
+            levelNumber = 1;
+        }
+        // Registered once, initBoard runs again on every level change
+        addKeyListener(new TAdapter(this));
+        setFocusable(true);
         initBoard();
     }
 
-    public Stack<Position> solveLevel() {
-        var tree = new Tree(level);
-        var rootNode = tree.getRoot();
-        Node winNode;
-        while (true) {
-            // Phase 1 - Selection
-            var promisingNode = selectPromisingNode(rootNode);
-            // Phase 2 - Expansion
-            expandNode(promisingNode);
-            // Phase 3 - Simulation
-            var nodeToExplore = promisingNode;
-            if (!promisingNode.getChildArray().isEmpty()) {
-                nodeToExplore = promisingNode.getBestChildNode();
+    // Runs on a background thread, Esc or the timeout stops it with an empty stack
+    public CompletableFuture<Stack<Position>> solveLevel() {
+        return solve(Function.identity());
+    }
+
+    // Only the walk to the next push and the push itself
+    public CompletableFuture<Stack<Position>> hint() {
+        return solve(Solution::untilFirstPush);
+    }
+
+    private CompletableFuture<Stack<Position>> solve(Function<Solution, Solution> shown) {
+        var progress = new SearchProgress();
+        solving = progress;
+        animations.schedule(new Animation(this, PROGRESS_REFRESH_MILLIS) {
+
+            @Override
+            public void onFireUp() {
+                targetComponent.repaint();
             }
-            Status playoutResult = simulateRandomPlayout(nodeToExplore);
-            // Phase 4 - Update
-            backPropogation(nodeToExplore, playoutResult);
 
-            if (Status.COMPLETED == playoutResult) {
-                winNode = nodeToExplore;
-                break;
+            @Override
+            public boolean finishCondition() {
+                return solving != progress;
             }
-        }
+        });
+        repaint();
+
+        var copy = new Level(level);
+        var limits = new SearchLimits(Long.MAX_VALUE, SOLVE_TIMEOUT, progress);
+        return CompletableFuture.supplyAsync(() -> solveCached(copy, limits), SOLVER_EXECUTOR)
+            .thenApply(solution -> progress.isCancelled()
+                ? new Stack<Position>()
+                : solution.map(shown).map(Solution::toStack).orElseGet(Stack::new))
+            .whenComplete((positions, error) -> SwingUtilities.invokeLater(() -> {
+                if (solving == progress) {
+                    solving = null;
+                }
+                repaint();
+            }));
+    }
 
-        Stack<Position> positions = new Stack<>();
-        //Stack<Level> levels = new Stack<>();
-        while (Objects.nonNull(winNode.getParent())) {
-            //levels.add(winNode.getState().getLevel());
-            positions.add(winNode.getState().getLevel().getPlayer().getPosition());
-            winNode = winNode.getParent();
+    private Optional<Solution> solveCached(Level copy, SearchLimits limits) {
+        if (Objects.isNull(solutions)) {
+            return runSolver(copy, limits);
         }
-        //levels.add(winNode.getState().getLevel());
-        positions.add(winNode.getState().getLevel().getPlayer().getPosition());
-
-        return positions;
+        var cached = solutions.get(copy, solverName);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        var solution = runSolver(copy, limits);
+        solution.ifPresent(s -> solutions.put(copy, solverName, s));
+        return solution;
     }
 
-    private void backPropogation(Node nodeToExplore, Status status) {
-        var tempNode = nodeToExplore;
-        while (tempNode != null) {
-            tempNode.getState().incrementVisit();
-            if (tempNode.getState().hasCompletedBaggages()) {
-                tempNode.getState().addScore(50);
-            }
-            tempNode.getState().setStatus(status);
-            tempNode = tempNode.getParent();
+    private Optional<Solution> runSolver(Level copy, SearchLimits limits) {
+        int threads = Integer.getInteger(SEARCH_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        switch (solverName) {
+            case "bidirectional":
+                return new BidirectionalSolver(limits).solve(copy);
+            case "mcts-root":
+                return new ParallelMctsSolver(Parallelism.ROOT, threads, SearchMode.PUSH, limits).solve(copy);
+            case "mcts-tree":
+                return new ParallelMctsSolver(Parallelism.TREE, threads, SearchMode.PUSH, limits).solve(copy);
+            default:
+                return solver.solve(copy, limits);
         }
     }
 
-    private Status simulateRandomPlayout(Node node) {
-        var tempNode = new Node(node);
-        var tempState = tempNode.getState();
-        var status = tempState.getLevel().checkStatus();
-
-        if (status == Status.STUCKED) {
-            tempNode.getParent().getState().setScore(Integer.MIN_VALUE);
+    // The sokoban.solver property, mcts, mcts-root, mcts-tree or bidirectional, anything else falls back to mcts with a warning
+    private static String solverName() {
+        var value = System.getProperty(SOLVER_PROPERTY, DEFAULT_SOLVER).trim().toLowerCase(Locale.ROOT);
+        switch (value) {
+            case DEFAULT_SOLVER:
+            case "mcts-root":
+            case "mcts-tree":
+            case "bidirectional":
+                return value;
+            default:
+                break;
         }
+        Logger.getLogger(Board.class.getName())
+            .warning("Unknown " + SOLVER_PROPERTY + " '" + value + "', using " + DEFAULT_SOLVER);
+        return DEFAULT_SOLVER;
+    }
 
-        return status;
+    // Solving still works without the cache when its directory cannot be created
+    private static SolutionCache openSolutionCache() {
+        try {
+            return SolutionCache.openDefault();
+        } catch (IOException e) {
+            return null;
+        }
     }
 
-    private Node selectPromisingNode(Node rootNode) {
-        var node = rootNode;
-        while (!node.getChildArray().isEmpty()) {
-            node = UCT.findBestNodeWithUCT(node);
+    private void cancelSolving() {
+        if (Objects.nonNull(solving)) {
+            solving.cancel();
+            solving = null;
         }
-        return node;
     }
 
-    private void expandNode(Node node) {
-        List<State> possibleStates = node.getState().getAllPossibleStates();
-        possibleStates.forEach(state -> {
-            Node newNode = new Node(state);
-            newNode.setParent(node);
-            node.getChildArray().add(newNode);
+    private void playSolution(Stack<Position> positions) {
+        if (positions.isEmpty() || level.isCompleted()) {
+            return;
+        }
+        animations.schedule(new Animation(this, ChronoField.MILLI_OF_DAY, 700) {
+
+            @Override
+            public void onFireUp() {
+                var nextPosition = positions.pop();
+                var player = level.getPlayer();
+                var playerPosition = player.getPosition();
+                var direction = Utils.calcDirection(playerPosition, nextPosition);
+                var collision = Utils.directionToCollision(direction);
+                if (Objects.nonNull(collision)) {
+                    checkBagCollision(collision);
+                }
+                player.setPosition(nextPosition);
+                repaintStep(playerPosition, direction);
+            }
+
+            @Override
+            public boolean finishCondition() {
+                return positions.isEmpty();
+            }
         });
     }
 
-    @SneakyThrows
-    private void initBoard() {
-        addKeyListener(new TAdapter(this));
-        setFocusable(true);
-        URL systemResource = ClassLoader.getSystemResource(String.format("levels/level_%s.txt", levelNumber));
-        level = Level.loadLevel(systemResource.getPath());
+    private void paintProgress(Graphics g) {
+        var progress = solving;
+        if (Objects.isNull(progress)) {
+            return;
+        }
+        g.setColor(new Color(0, 0, 0, 160));
+        g.fillRect(0, 0, getWidth(), 24);
+        g.setColor(Color.WHITE);
+        g.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        g.drawString(String.format("Solving: %d nodes, %d nodes/s, depth %d (Esc - cancel)",
+            progress.getExpandedNodes(), progress.getNodesPerSecond(), progress.getBestDepth()), 8, 16);
     }
 
-    private void buildWorld(Graphics g) {
-        g.setColor(new Color(255, 255, 255));
-        g.fillRect(0, 0, this.getWidth(), this.getHeight());
+    @SneakyThrows
+    private void initBoard() {
+        if (Objects.nonNull(levels)) {
+            level = levels.level(levelNumber - 1);
+        } else {
+            URL systemResource = ClassLoader.getSystemResource(String.format("levels/level_%s.txt", levelNumber));
+            level = Level.loadLevel(systemResource.getPath());
+        }
 
-        ArrayList<Actor> world = new ArrayList<>();
+        // The list is refilled in place, the wheel listener keeps a reference to it
+        world.clear();
         world.addAll(level.getWalls());
         world.addAll(level.getAreas());
         world.addAll(level.getBaggs());
         world.add(level.getPlayer());
+        background = null;
 
         if (getMouseWheelListeners().length == 0) {
             addMouseWheelListener(new CustomMouseWheelListener(world, this));
         }
+    }
 
-        for (Actor item : world) {
-            if (Objects.isNull(item.getScaledImage())) {
-                g.drawImage(item.getOriginalImage(), item.y() * SPACE, item.x() * SPACE, this);
-            } else {
-                var scaledImage = item.getScaledImage();
-                int height = scaledImage.getHeight(this);
-                int weight = scaledImage.getWidth(this);
-                g.drawImage(item.getScaledImage(), item.y() * weight, item.x() * height, this);
+    private int tileSize() {
+        var scaledImage = level.getPlayer().getScaledImage();
+        return Objects.isNull(scaledImage) ? SPACE : scaledImage.getWidth(this);
+    }
+
+    private Image image(Actor actor) {
+        return Objects.isNull(actor.getScaledImage()) ? actor.getSprite().getImage() : actor.getScaledImage();
+    }
+
+    // Walls and areas never move, they are rendered once per level and zoom level
+    private BufferedImage background(int tile) {
+        if (Objects.isNull(background) || backgroundTile != tile) {
+            background = new BufferedImage(level.getLevelWidth() * tile, level.getLevelHeight() * tile, BufferedImage.TYPE_INT_RGB);
+            var g = background.createGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, background.getWidth(), background.getHeight());
+            for (Actor item : level.getWalls()) {
+                g.drawImage(image(item), item.y() * tile, item.x() * tile, this);
+            }
+            for (Actor item : level.getAreas()) {
+                g.drawImage(image(item), item.y() * tile, item.x() * tile, this);
             }
+            g.dispose();
+            backgroundTile = tile;
         }
+        return background;
+    }
+
+    private void buildWorld(Graphics g) {
+        int tile = tileSize();
+        Rectangle clip = g.getClipBounds();
+        if (Objects.isNull(clip)) {
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
+        }
+
+        g.setColor(Color.WHITE);
+        g.fillRect(clip.x, clip.y, clip.width, clip.height);
+        g.drawImage(background(tile), 0, 0, this);
+
+        for (Actor item : level.getBaggs()) {
+            drawIfVisible(g, clip, item, tile);
+        }
+        drawIfVisible(g, clip, level.getPlayer(), tile);
+    }
+
+    private void drawIfVisible(Graphics g, Rectangle clip, Actor item, int tile) {
+        if (clip.intersects(item.y() * tile, item.x() * tile, tile, tile)) {
+            g.drawImage(image(item), item.y() * tile, item.x() * tile, this);
+        }
+    }
+
+    private void repaintCell(Position position) {
+        int tile = tileSize();
+        repaint(position.y * tile, position.x * tile, tile, tile);
+    }
+
+    // A step touches at most the player's old cell, its new cell and the cell a pushed box lands on
+    private void repaintStep(Position from, Direction direction) {
+        if (level.isCompleted()) {
+            repaint();
+            return;
+        }
+        var to = level.neighbour(from, direction);
+        repaintCell(from);
+        repaintCell(to);
+        repaintCell(level.neighbour(to, direction));
     }
 
     private boolean addedWinAnimation = false;
     private void winAnimation() {
         if (!addedWinAnimation) {
             addedWinAnimation = true;
-            animations.add(new Animation(this) {
-
-                private int greenColor = 0;
+            winGreen = 0;
+            animations.schedule(new Animation(this) {
 
                 @Override
                 public void onFireUp() {
-                    greenColor += 10;
-                    var g = targetComponent.getGraphics();
-                    g.clearRect(0, 0, getWidth(), getHeight());
-                    g.setColor(new Color(0, greenColor, 0));
-                    g.fillRect(0, 0, targetComponent.getWidth(), targetComponent.getHeight());
-                    g.setColor(Color.BLUE);
-                    g.setFont(new Font(null, 0, 50));
-                    g.drawString("COMPLETED", getWidth() / 2 - (5 * 25), getHeight() / 2);
-                    g.drawString("Press N - Go next level", getWidth() / 2 - (12 * 25), getHeight() / 2 + 50);
+                    winGreen += 10;
                     targetComponent.repaint();
                 }
 
                 @Override
                 public boolean finishCondition() {
-                    return greenColor == 250;
+                    return winGreen == 250;
                 }
             });
         }
     }
 
+    private void paintWin(Graphics g) {
+        g.setColor(new Color(0, winGreen, 0));
+        g.fillRect(0, 0, getWidth(), getHeight());
+        g.setColor(Color.BLUE);
+        g.setFont(new Font(null, 0, 50));
+        g.drawString("COMPLETED", getWidth() / 2 - (5 * 25), getHeight() / 2);
+        g.drawString("Press N - Go next level", getWidth() / 2 - (12 * 25), getHeight() / 2 + 50);
+    }
+
     @Override
     public void paintComponent(Graphics g) {
 
         super.paintComponent(g);
 
-        if (!level.isCompleted())
+        if (!level.isCompleted()) {
             buildWorld(g);
-        else
+            paintProgress(g);
+        } else {
             winAnimation();
-
-        ListIterator<Animation> iterator = animations.listIterator();
-        while (iterator.hasNext()) {
-            Animation next = iterator.next();
-            if (next.isAnimationCompleted()) {
-                iterator.remove();
-            }
-            next.fireUp();
+            paintWin(g);
         }
     }
 
@@ -222,39 +383,32 @@ public class Board extends JPanel {
         @Override
         public void keyPressed(KeyEvent e) {
 
+            int key = e.getKeyCode();
+            if (Objects.isNull(solving) && (key == KeyEvent.VK_PAGE_DOWN || key == KeyEvent.VK_PAGE_UP)) {
+                changeLevel(key == KeyEvent.VK_PAGE_DOWN ? 1 : -1);
+                return;
+            }
+
             if (level.isCompleted()) {
                 return;
             }
 
-            int key = e.getKeyCode();
+            if (Objects.nonNull(solving)) {
+                if (key == KeyEvent.VK_ESCAPE) {
+                    cancelSolving();
+                    repaint();
+                }
+                return;
+            }
+            var playerPosition = new Position(level.getPlayer().getPosition());
 
             switch (key) {
 
                 case KeyEvent.VK_S:
-                    Stack<Position> positions = solveLevel();
-
-                    animations.add(new Animation(jComponent, ChronoField.MILLI_OF_DAY, 700) {
-
-                        @Override
-                        public void onFireUp() {
-                            var nextPosition = positions.pop();
-                            var player = level.getPlayer();
-                            var playerPosition = player.getPosition();
-                            var direction = Utils.calcDirection(playerPosition, nextPosition);
-                            var collision = Utils.directionToCollision(direction);
-                            if (Objects.nonNull(collision)) {
-                                checkBagCollision(collision);
-                            }
-                            player.setPosition(nextPosition);
-                            jComponent.repaint();
-                        }
-
-                        @Override
-                        public boolean finishCondition() {
-                            return positions.isEmpty();
-                        }
-                    });
-
+                    solveLevel().thenAccept(positions -> SwingUtilities.invokeLater(() -> playSolution(positions)));
+                    break;
+                case KeyEvent.VK_H:
+                    hint().thenAccept(positions -> SwingUtilities.invokeLater(() -> playSolution(positions)));
                     break;
                 case KeyEvent.VK_LEFT:
 
@@ -267,8 +421,9 @@ public class Board extends JPanel {
                     }
 
                     level.getPlayer().moveLeft();
+                    repaintStep(playerPosition, Direction.LEFT);
 
-                    break;
+                    return;
 
                 case KeyEvent.VK_RIGHT:
 
@@ -281,8 +436,9 @@ public class Board extends JPanel {
                     }
 
                     level.getPlayer().moveRight();
+                    repaintStep(playerPosition, Direction.RIGHT);
 
-                    break;
+                    return;
 
                 case KeyEvent.VK_UP:
 
@@ -295,8 +451,9 @@ public class Board extends JPanel {
                     }
 
                     level.getPlayer().moveUp();
+                    repaintStep(playerPosition, Direction.UP);
 
-                    break;
+                    return;
 
                 case KeyEvent.VK_DOWN:
 
@@ -309,8 +466,9 @@ public class Board extends JPanel {
                     }
 
                     level.getPlayer().moveDown();
+                    repaintStep(playerPosition, Direction.DOWN);
 
-                    break;
+                    return;
 
                 case KeyEvent.VK_R:
                     restartLevel();
@@ -325,213 +483,50 @@ public class Board extends JPanel {
     }
 
     private boolean checkWallCollision(Actor actor, Collision type) {
+        return level.isWall(level.neighbour(actor.getPosition(), Utils.collisionToDirection(type)));
+    }
 
-        switch (type) {
-
-            case LEFT_COLLISION:
-
-                for (int i = 0; i < level.getWalls().size(); i++) {
-
-                    Wall wall = level.getWalls().get(i);
-
-                    if (actor.isLeftCollision(wall)) {
-
-                        return true;
-                    }
-                }
-
-                return false;
-
-            case RIGHT_COLLISION:
-
-                for (int i = 0; i < level.getWalls().size(); i++) {
-
-                    Wall wall = level.getWalls().get(i);
-
-                    if (actor.isRightCollision(wall)) {
-                        return true;
-                    }
-                }
-
-                return false;
-
-            case TOP_COLLISION:
-
-                for (int i = 0; i < level.getWalls().size(); i++) {
-
-                    Wall wall = level.getWalls().get(i);
-
-                    if (actor.isTopCollision(wall)) {
-
-                        return true;
-                    }
-                }
-
-                return false;
-
-            case BOTTOM_COLLISION:
-
-                for (int i = 0; i < level.getWalls().size(); i++) {
-
-                    Wall wall = level.getWalls().get(i);
-
-                    if (actor.isBottomCollision(wall)) {
-
-                        return true;
-                    }
-                }
-
-                return false;
+    private boolean checkBagCollision(Collision type) {
+        var direction = Utils.collisionToDirection(type);
+        var bag = level.baggageAt(level.neighbour(level.getPlayer().getPosition(), direction));
+        if (Objects.isNull(bag)) {
+            return false;
+        }
 
-            default:
-                break;
+        var behind = level.neighbour(bag.getPosition(), direction);
+        if (level.isWall(behind) || Objects.nonNull(level.baggageAt(behind))) {
+            return true;
         }
 
+        level.moveBaggage(bag, direction);
         return false;
     }
 
-    private boolean checkBagCollision(Collision type) {
-
-        List<Baggage> baggs = level.getBaggs();
-        var player = level.getPlayer();
-
-        switch (type) {
-
-            case LEFT_COLLISION:
-
-                for (int i = 0; i < baggs.size(); i++) {
-
-                    Baggage bag = baggs.get(i);
-
-                    if (player.isLeftCollision(bag)) {
-
-                        for (int j = 0; j < baggs.size(); j++) {
-
-                            Baggage item = baggs.get(j);
-
-                            if (!bag.equals(item)) {
-
-                                if (bag.isLeftCollision(item)) {
-                                    return true;
-                                }
-                            }
-
-                            if (checkWallCollision(bag, Collision.LEFT_COLLISION)) {
-                                return true;
-                            }
-                        }
-
-                        bag.moveLeft();
-                        level.isCompleted();
-                    }
-                }
-
-                return false;
-
-            case RIGHT_COLLISION:
-
-                for (int i = 0; i < baggs.size(); i++) {
-
-                    Baggage bag = baggs.get(i);
-
-                    if (player.isRightCollision(bag)) {
-
-                        for (int j = 0; j < baggs.size(); j++) {
-
-                            Baggage item = baggs.get(j);
-
-                            if (!bag.equals(item)) {
-
-                                if (bag.isRightCollision(item)) {
-                                    return true;
-                                }
-                            }
-
-                            if (checkWallCollision(bag, Collision.RIGHT_COLLISION)) {
-                                return true;
-                            }
-                        }
-
-                        bag.moveRight();
-                        level.isCompleted();
-                    }
-                }
-                return false;
-
-            case TOP_COLLISION:
-
-                for (int i = 0; i < baggs.size(); i++) {
-
-                    Baggage bag = baggs.get(i);
-
-                    if (player.isTopCollision(bag)) {
-
-                        for (int j = 0; j < baggs.size(); j++) {
-
-                            Baggage item = baggs.get(j);
-
-                            if (!bag.equals(item)) {
-
-                                if (bag.isTopCollision(item)) {
-                                    return true;
-                                }
-                            }
-
-                            if (checkWallCollision(bag, Collision.TOP_COLLISION)) {
-                                return true;
-                            }
-                        }
-
-                        bag.moveUp();
-                        level.isCompleted();
-                    }
-                }
-
-                return false;
-
-            case BOTTOM_COLLISION:
-
-                for (int i = 0; i < baggs.size(); i++) {
-
-                    Baggage bag = baggs.get(i);
-
-                    if (player.isBottomCollision(bag)) {
-
-                        for (int j = 0; j < baggs.size(); j++) {
-
-                            Baggage item = baggs.get(j);
-
-                            if (!bag.equals(item)) {
-
-                                if (bag.isBottomCollision(item)) {
-                                    return true;
-                                }
-                            }
-
-                            if (checkWallCollision(bag, Collision.BOTTOM_COLLISION)) {
-
-                                return true;
-                            }
-                        }
-
-                        bag.moveDown();
-                        level.isCompleted();
-                    }
-                }
-
-                break;
-
-            default:
-                break;
+    private boolean hasLevel(int number) {
+        if (number < 1) {
+            return false;
+        }
+        if (Objects.nonNull(levels)) {
+            return number <= levels.size();
         }
+        return Objects.nonNull(ClassLoader.getSystemResource(String.format("levels/level_%s.txt", number)));
+    }
 
-        return false;
+    // Page Down and Page Up step through the collection, also once a level is completed
+    private void changeLevel(int delta) {
+        if (!hasLevel(levelNumber + delta)) {
+            return;
+        }
+        levelNumber += delta;
+        restartLevel();
+        repaint();
     }
 
     private void restartLevel() {
         addedWinAnimation = false;
+        cancelSolving();
+        animations.cancelAll();
         initBoard();
-        buildWorld(getGraphics());
     }
 
 }
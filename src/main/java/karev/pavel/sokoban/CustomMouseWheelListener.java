@@ -2,13 +2,20 @@ package karev.pavel.sokoban;
 
 import java.awt.Image;
 import java.awt.event.MouseWheelEvent;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
 
 public class CustomMouseWheelListener implements java.awt.event.MouseWheelListener {
 
+    private static final int SPRITE_CACHE_SIZE = 64;
+
     private final List<Actor> world;
     private final JComponent component;
+    private final SpriteCache spriteCache = new SpriteCache(SPRITE_CACHE_SIZE);
     private double zoom;
 
     public CustomMouseWheelListener(List<Actor> world, JComponent component) {
@@ -31,13 +38,23 @@ public class CustomMouseWheelListener implements java.awt.event.MouseWheelListen
                 zoom = 1;
             }
 
-            world.forEach(actor -> {
-                var image = actor.getOriginalImage();
-                int newWidth = (int) (image.getWidth(component) * zoom);
-                int newHeight = (int) (image.getHeight(component) * zoom);
-                actor.setScaledImage(image.getScaledInstance(newWidth, newHeight, Image.SCALE_DEFAULT));
-            });
-            component.repaint();
+            applyZoom(zoom);
+        }
+    }
+
+    // Sprites are scaled off the EDT, actors are only touched once every tier is ready
+    private void applyZoom(double requested) {
+        Map<Sprite, CompletableFuture<Image>> tiers = new EnumMap<>(Sprite.class);
+        for (Sprite sprite : Sprite.values()) {
+            tiers.put(sprite, spriteCache.scaled(sprite, requested));
         }
+        CompletableFuture.allOf(tiers.values().toArray(new CompletableFuture<?>[0]))
+            .thenRun(() -> SwingUtilities.invokeLater(() -> {
+                if (requested != zoom) {
+                    return;
+                }
+                world.forEach(actor -> actor.setScaledImage(tiers.get(actor.getSprite()).join()));
+                component.repaint();
+            }));
     }
 }
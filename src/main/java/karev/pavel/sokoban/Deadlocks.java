@@ -0,0 +1,161 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import karev.pavel.sokoban.Utils.Direction;
+import lombok.experimental.UtilityClass;
+
+@UtilityClass
+public class Deadlocks {
+
+    public static boolean isDeadlocked(Layout layout) {
+        var grid = layout.getGrid();
+        var boxes = layout.getBoxes();
+        if (boxes.intersects(grid.getDeadSquares())) {
+            return true;
+        }
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            if (!grid.isGoal(box) && isFrozen(layout, box)) {
+                return true;
+            }
+        }
+        return isClosedCorral(layout, layout.reachable());
+    }
+
+    // Only the patterns the last push could have created around the moved box are checked
+    public static boolean isDeadlocked(Layout layout, int movedBox, BitSet reachable) {
+        if (layout.getGrid().isDead(movedBox)) {
+            return true;
+        }
+        return isSquareBlock(layout, movedBox)
+            || isFrozen(layout, movedBox)
+            || isClosedCorral(layout, reachable);
+    }
+
+    /*
+     * Four occupied cells in a 2x2 square can never be moved again, the square is
+     * a deadlock unless every box in it already sits on an area.
+     */
+    static boolean isSquareBlock(Layout layout, int box) {
+        var grid = layout.getGrid();
+        Direction[][] corners = {
+            {Direction.UP, Direction.LEFT},
+            {Direction.UP, Direction.RIGHT},
+            {Direction.DOWN, Direction.LEFT},
+            {Direction.DOWN, Direction.RIGHT}
+        };
+        for (Direction[] corner : corners) {
+            int vertical = grid.neighbour(box, corner[0]);
+            int horizontal = grid.neighbour(box, corner[1]);
+            int diagonal = grid.neighbour(vertical, corner[1]);
+            int[] square = {box, vertical, horizontal, diagonal};
+
+            var blocked = true;
+            var offGoal = false;
+            for (int cell : square) {
+                if (grid.isWall(cell)) {
+                    continue;
+                }
+                if (!layout.isBox(cell)) {
+                    blocked = false;
+                    break;
+                }
+                offGoal |= !grid.isGoal(cell);
+            }
+            if (blocked && offGoal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * A box is frozen when it can move along neither axis. Neighbour boxes are
+     * checked recursively with the current box treated as a wall, a frozen group
+     * is a deadlock when any of its boxes is off an area.
+     */
+    static boolean isFrozen(Layout layout, int box) {
+        List<Integer> frozen = new ArrayList<>();
+        if (!isFrozen(layout, box, new BitSet(layout.getGrid().size()), frozen)) {
+            return false;
+        }
+        var grid = layout.getGrid();
+        return frozen.stream().anyMatch(cell -> !grid.isGoal(cell));
+    }
+
+    private static boolean isFrozen(Layout layout, int box, BitSet asWalls, List<Integer> frozen) {
+        asWalls.set(box);
+        int mark = frozen.size();
+        var answer = isBlocked(layout, box, Direction.LEFT, asWalls, frozen)
+            && isBlocked(layout, box, Direction.UP, asWalls, frozen);
+        if (answer) {
+            frozen.add(box);
+        } else {
+            asWalls.clear(box);
+            frozen.subList(mark, frozen.size()).clear();
+        }
+        return answer;
+    }
+
+    private static boolean isBlocked(Layout layout, int box, Direction direction, BitSet asWalls, List<Integer> frozen) {
+        var grid = layout.getGrid();
+        int one = grid.neighbour(box, direction);
+        int other = grid.neighbour(box, direction.opposite());
+
+        if (grid.isWall(one) || grid.isWall(other) || asWalls.get(one) || asWalls.get(other)) {
+            return true;
+        }
+        if (grid.isDead(one) && grid.isDead(other)) {
+            return true;
+        }
+        return (layout.isBox(one) && isFrozen(layout, one, asWalls, frozen))
+            || (layout.isBox(other) && isFrozen(layout, other, asWalls, frozen));
+    }
+
+    /*
+     * Cells the player cannot reach are fenced off by boxes. When every fence box
+     * is frozen the player never gets in, so an empty area or a misplaced box
+     * inside stays that way forever.
+     */
+    static boolean isClosedCorral(Layout layout, BitSet reachable) {
+        var grid = layout.getGrid();
+        var seen = (BitSet) reachable.clone();
+        seen.or(grid.getWalls());
+        var stack = new int[grid.size()];
+
+        for (int start = seen.nextClearBit(0); start < grid.size(); start = seen.nextClearBit(start + 1)) {
+            var top = 0;
+            var needsBox = false;
+            var fenceFrozen = true;
+            seen.set(start);
+            stack[top++] = start;
+            while (top > 0) {
+                int cell = stack[--top];
+                boolean box = layout.isBox(cell);
+                needsBox |= box ? !grid.isGoal(cell) : grid.isGoal(cell);
+                for (Direction direction : Grid.MOVES) {
+                    int next = grid.neighbour(cell, direction);
+                    if (next < 0) {
+                        continue;
+                    }
+                    if (box && fenceFrozen && reachable.get(next) && !isFrozenInPlace(layout, cell)) {
+                        fenceFrozen = false;
+                    }
+                    if (!seen.get(next)) {
+                        seen.set(next);
+                        stack[top++] = next;
+                    }
+                }
+            }
+            if (needsBox && fenceFrozen) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isFrozenInPlace(Layout layout, int box) {
+        return isFrozen(layout, box, new BitSet(layout.getGrid().size()), new ArrayList<>());
+    }
+}
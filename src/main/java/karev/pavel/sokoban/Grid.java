@@ -0,0 +1,222 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import karev.pavel.sokoban.Utils.Direction;
+import lombok.Getter;
+
+/*
+ * Static part of a level shared by every solver state: walls and areas are
+ * stored once per level, cells are addressed as x * width + y.
+ */
+@Getter
+public class Grid {
+
+    static final Direction[] MOVES = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+    private static final long ZOBRIST_SEED = 0x5EED_50C0_BA11L;
+
+    private final int width;
+    private final int height;
+    private final BitSet walls;
+    private final BitSet goals;
+    private final int[] neighbours;
+    private final long[] boxKeys;
+    private final long[] playerKeys;
+    private final BitSet deadSquares;
+    private final Heuristic heuristic;
+    // Symmetries of the board other than the identity and the cell each one maps a floor cell to
+    private final Symmetry[] symmetries;
+    private final int[][] symmetryCells;
+
+    Grid(char[][] map, int height, int width) {
+        this.width = width;
+        this.height = height;
+        this.walls = new BitSet(height * width);
+        this.goals = new BitSet(height * width);
+        for (var x = 0; x < height; x++) {
+            for (var y = 0; y < width; y++) {
+                char c = y < map[x].length ? map[x][y] : '\0';
+                if (c == '#' || c == '\0') {
+                    walls.set(index(x, y));
+                }
+                if (Level.isArea(c)) {
+                    goals.set(index(x, y));
+                }
+            }
+        }
+
+        this.neighbours = new int[size() * MOVES.length];
+        for (var cell = 0; cell < size(); cell++) {
+            int x = cell / width;
+            int y = cell % width;
+            neighbours[cell * MOVES.length + Direction.UP.ordinal()] = x > 0 ? cell - width : -1;
+            neighbours[cell * MOVES.length + Direction.DOWN.ordinal()] = x + 1 < height ? cell + width : -1;
+            neighbours[cell * MOVES.length + Direction.LEFT.ordinal()] = y > 0 ? cell - 1 : -1;
+            neighbours[cell * MOVES.length + Direction.RIGHT.ordinal()] = y + 1 < width ? cell + 1 : -1;
+        }
+
+        var random = new SplittableRandom(ZOBRIST_SEED);
+        this.boxKeys = random.longs(size()).toArray();
+        this.playerKeys = random.longs(size()).toArray();
+        this.deadSquares = findDeadSquares();
+        this.heuristic = new Heuristic(this);
+
+        List<Symmetry> found = new ArrayList<>();
+        List<int[]> cells = new ArrayList<>();
+        findSymmetries(found, cells);
+        this.symmetries = found.toArray(new Symmetry[0]);
+        this.symmetryCells = cells.toArray(new int[0][]);
+    }
+
+    /*
+     * A symmetry of the board maps every floor cell to a floor cell with the
+     * same goal flag, within the bounding box of the floor so padding does not
+     * matter. Dead squares and push distances only depend on walls and goals,
+     * so they are preserved as well. Walls map to -1.
+     */
+    private void findSymmetries(List<Symmetry> found, List<int[]> cells) {
+        int top = height;
+        int bottom = -1;
+        int left = width;
+        int right = -1;
+        for (int cell = walls.nextClearBit(0); cell < size(); cell = walls.nextClearBit(cell + 1)) {
+            top = Math.min(top, cell / width);
+            bottom = Math.max(bottom, cell / width);
+            left = Math.min(left, cell % width);
+            right = Math.max(right, cell % width);
+        }
+        int boxHeight = bottom - top + 1;
+        int boxWidth = right - left + 1;
+        for (Symmetry symmetry : Symmetry.values()) {
+            if (symmetry == Symmetry.IDENTITY || bottom < 0 || symmetry.isTranspose() && boxHeight != boxWidth) {
+                continue;
+            }
+            var map = new int[size()];
+            Arrays.fill(map, -1);
+            var preserved = true;
+            for (int cell = walls.nextClearBit(0); cell < size() && preserved; cell = walls.nextClearBit(cell + 1)) {
+                int x = cell / width - top;
+                int y = cell % width - left;
+                int image = index(top + symmetry.x(x, y, boxHeight, boxWidth), left + symmetry.y(x, y, boxHeight, boxWidth));
+                preserved = !isWall(image) && isGoal(image) == isGoal(cell);
+                map[cell] = image;
+            }
+            if (preserved) {
+                found.add(symmetry);
+                cells.add(map);
+            }
+        }
+    }
+
+    /*
+     * A box can only ever reach an area from the cells it can be pulled to
+     * starting from that area, every other floor cell is a dead square.
+     */
+    private BitSet findDeadSquares() {
+        var alive = new BitSet(size());
+        var queue = new ArrayDeque<Integer>();
+        for (int goal = goals.nextSetBit(0); goal >= 0; goal = goals.nextSetBit(goal + 1)) {
+            alive.set(goal);
+            queue.add(goal);
+        }
+        while (!queue.isEmpty()) {
+            int box = queue.poll();
+            for (Direction direction : MOVES) {
+                int pulledTo = neighbour(box, direction);
+                int player = neighbour(pulledTo, direction);
+                if (!isWall(pulledTo) && !isWall(player) && !alive.get(pulledTo)) {
+                    alive.set(pulledTo);
+                    queue.add(pulledTo);
+                }
+            }
+        }
+
+        var dead = new BitSet(size());
+        dead.set(0, size());
+        dead.andNot(walls);
+        dead.andNot(alive);
+        return dead;
+    }
+
+    public int size() {
+        return width * height;
+    }
+
+    public int index(int x, int y) {
+        return x * width + y;
+    }
+
+    public int index(Position position) {
+        return index(position.x, position.y);
+    }
+
+    public Position position(int cell) {
+        return new Position(cell / width, cell % width);
+    }
+
+    public int neighbour(int cell, Direction direction) {
+        if (cell < 0) {
+            return -1;
+        }
+        return neighbours[cell * MOVES.length + direction.ordinal()];
+    }
+
+    public boolean isWall(int cell) {
+        return cell < 0 || walls.get(cell);
+    }
+
+    public boolean isGoal(int cell) {
+        return cell >= 0 && goals.get(cell);
+    }
+
+    public boolean isDead(int cell) {
+        return cell < 0 || deadSquares.get(cell);
+    }
+
+    public long boxKey(int cell) {
+        return boxKeys[cell];
+    }
+
+    public long playerKey(int cell) {
+        return playerKeys[cell];
+    }
+
+    public int symmetryCount() {
+        return symmetries.length;
+    }
+
+    public int[] symmetryCells(int symmetry) {
+        return symmetryCells[symmetry];
+    }
+
+    public long hash(int player, BitSet boxes) {
+        long hash = playerKeys[player];
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            hash ^= boxKeys[box];
+        }
+        return hash;
+    }
+
+    public int[] distancesFrom(int start) {
+        var distances = new int[size()];
+        Arrays.fill(distances, -1);
+        var queue = new ArrayDeque<Integer>();
+        distances[start] = 0;
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            for (Direction direction : MOVES) {
+                int next = neighbour(current, direction);
+                if (!isWall(next) && distances[next] < 0) {
+                    distances[next] = distances[current] + 1;
+                    queue.add(next);
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,188 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import karev.pavel.sokoban.Utils.Direction;
+import lombok.Getter;
+
+/*
+ * Push distances from every cell to every area, computed once per level by
+ * pulling a box away from each area. Boxes are matched to areas on top of that
+ * table, either greedily or with the Hungarian method. towards builds the
+ * same estimate for a backward search, pull distances to a set of start cells.
+ */
+@Getter
+public class Heuristic {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int INFINITY = 1 << 20;
+
+    private final Grid grid;
+    private final int[] goals;
+    private final int[][] pushDistances;
+    private final int[] nearestGoalDistances;
+
+    Heuristic(Grid grid) {
+        this(grid, grid.getGoals().stream().toArray(), false);
+    }
+
+    private Heuristic(Grid grid, int[] goals, boolean pulls) {
+        this.grid = grid;
+        this.goals = goals;
+        this.pushDistances = new int[goals.length][];
+        for (var i = 0; i < goals.length; i++) {
+            pushDistances[i] = distances(goals[i], pulls);
+        }
+        this.nearestGoalDistances = new int[grid.size()];
+        Arrays.fill(nearestGoalDistances, INFINITY);
+        for (int[] distances : pushDistances) {
+            for (var cell = 0; cell < distances.length; cell++) {
+                nearestGoalDistances[cell] = Math.min(nearestGoalDistances[cell], distances[cell]);
+            }
+        }
+    }
+
+    // Boxes matched to the given cells by the number of pulls that bring them there
+    public static Heuristic towards(Grid grid, int[] cells) {
+        return new Heuristic(grid, cells, true);
+    }
+
+    /*
+     * Moves a box away from the target the opposite way: pulled away when the
+     * distances count pushes to it, pushed away when they count pulls to it.
+     */
+    private int[] distances(int goal, boolean pulls) {
+        var distances = new int[grid.size()];
+        Arrays.fill(distances, INFINITY);
+        var queue = new ArrayDeque<Integer>();
+        distances[goal] = 0;
+        queue.add(goal);
+        while (!queue.isEmpty()) {
+            int box = queue.poll();
+            for (Direction direction : Grid.MOVES) {
+                int movedTo = grid.neighbour(box, direction);
+                int player = pulls ? grid.neighbour(box, direction.opposite()) : grid.neighbour(movedTo, direction);
+                if (!grid.isWall(movedTo) && !grid.isWall(player) && distances[movedTo] == INFINITY) {
+                    distances[movedTo] = distances[box] + 1;
+                    queue.add(movedTo);
+                }
+            }
+        }
+        return distances;
+    }
+
+    public int pushDistance(int cell, int goalIndex) {
+        return pushDistances[goalIndex][cell];
+    }
+
+    public int nearestGoalDistance(int cell) {
+        return nearestGoalDistances[cell];
+    }
+
+    private int[] boxes(Layout layout) {
+        return layout.getBoxes().stream().toArray();
+    }
+
+    // Sum of the cheapest pairs taken one by one, fast but may overshoot the optimal matching
+    public int greedyEstimate(Layout layout) {
+        var boxes = boxes(layout);
+        if (boxes.length > goals.length) {
+            return UNREACHABLE;
+        }
+        var pairs = new long[boxes.length * goals.length];
+        for (var b = 0; b < boxes.length; b++) {
+            for (var g = 0; g < goals.length; g++) {
+                pairs[b * goals.length + g] = (long) pushDistances[g][boxes[b]] << 32 | b * goals.length + g;
+            }
+        }
+        Arrays.sort(pairs);
+
+        var boxUsed = new boolean[boxes.length];
+        var goalUsed = new boolean[goals.length];
+        int matched = 0;
+        var total = 0;
+        for (long pair : pairs) {
+            int distance = (int) (pair >>> 32);
+            int b = (int) pair / goals.length;
+            int g = (int) pair % goals.length;
+            if (boxUsed[b] || goalUsed[g]) {
+                continue;
+            }
+            if (distance >= INFINITY) {
+                return UNREACHABLE;
+            }
+            boxUsed[b] = true;
+            goalUsed[g] = true;
+            total += distance;
+            if (++matched == boxes.length) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    // Minimum-cost assignment of boxes to areas, never more than the real number of pushes
+    public int estimate(Layout layout) {
+        var boxes = boxes(layout);
+        int n = boxes.length;
+        int m = goals.length;
+        if (n > m) {
+            return UNREACHABLE;
+        }
+
+        var u = new int[n + 1];
+        var v = new int[m + 1];
+        var match = new int[m + 1];
+        var way = new int[m + 1];
+        var minv = new int[m + 1];
+        var used = new boolean[m + 1];
+        for (var i = 1; i <= n; i++) {
+            match[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, Integer.MAX_VALUE);
+            Arrays.fill(used, false);
+            do {
+                used[j0] = true;
+                int i0 = match[j0];
+                int delta = Integer.MAX_VALUE;
+                int j1 = 0;
+                for (var j = 1; j <= m; j++) {
+                    if (used[j]) {
+                        continue;
+                    }
+                    int current = pushDistances[j - 1][boxes[i0 - 1]] - u[i0] - v[j];
+                    if (current < minv[j]) {
+                        minv[j] = current;
+                        way[j] = j0;
+                    }
+                    if (minv[j] < delta) {
+                        delta = minv[j];
+                        j1 = j;
+                    }
+                }
+                for (var j = 0; j <= m; j++) {
+                    if (used[j]) {
+                        u[match[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (match[j0] != 0);
+            do {
+                int j1 = way[j0];
+                match[j0] = match[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        var total = 0;
+        for (var j = 1; j <= m; j++) {
+            if (match[j] != 0) {
+                total += pushDistances[j - 1][boxes[match[j] - 1]];
+            }
+        }
+        return total >= INFINITY ? UNREACHABLE : total;
+    }
+}
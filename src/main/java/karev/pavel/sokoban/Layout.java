@@ -0,0 +1,327 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import karev.pavel.sokoban.Level.Status;
+import karev.pavel.sokoban.Utils.Direction;
+import lombok.Getter;
+
+/*
+ * Solver-side game state: the player cell and a bitset of box cells on top of
+ * a shared Grid. Copying it costs one BitSet clone instead of a whole Level.
+ */
+@Getter
+public class Layout {
+
+    private final Grid grid;
+    private final BitSet boxes;
+    private int player;
+    private long hash;
+
+    public Layout(Grid grid, int player, BitSet boxes) {
+        this.grid = grid;
+        this.player = player;
+        this.boxes = boxes;
+        this.hash = grid.hash(player, boxes);
+    }
+
+    public Layout(Layout layout) {
+        this.grid = layout.grid;
+        this.player = layout.player;
+        this.boxes = (BitSet) layout.boxes.clone();
+        this.hash = layout.hash;
+    }
+
+    // Same grid only, lets a scratch layout be reused without allocating
+    public void copyFrom(Layout layout) {
+        this.boxes.clear();
+        this.boxes.or(layout.boxes);
+        this.player = layout.player;
+        this.hash = layout.hash;
+    }
+
+    public static Layout of(Level level) {
+        var grid = level.getGrid();
+        var boxes = new BitSet(grid.size());
+        level.getBaggs().forEach(baggage -> boxes.set(grid.index(baggage.getPosition())));
+        return new Layout(grid, grid.index(level.getPlayer().getPosition()), boxes);
+    }
+
+    public boolean isBox(int cell) {
+        return cell >= 0 && boxes.get(cell);
+    }
+
+    public boolean isFree(int cell) {
+        return !grid.isWall(cell) && !boxes.get(cell);
+    }
+
+    public boolean canMove(Direction direction) {
+        int target = grid.neighbour(player, direction);
+        if (grid.isWall(target)) {
+            return false;
+        }
+        if (!boxes.get(target)) {
+            return true;
+        }
+        int behind = grid.neighbour(target, direction);
+        return isFree(behind) && !grid.isDead(behind);
+    }
+
+    public List<Direction> availableMoves() {
+        List<Direction> answer = new ArrayList<>(Grid.MOVES.length);
+        for (Direction direction : Grid.MOVES) {
+            if (canMove(direction)) {
+                answer.add(direction);
+            }
+        }
+        return answer;
+    }
+
+    public void performMove(Direction direction) {
+        int target = grid.neighbour(player, direction);
+        if (boxes.get(target)) {
+            int behind = grid.neighbour(target, direction);
+            boxes.clear(target);
+            boxes.set(behind);
+            hash ^= grid.boxKey(target) ^ grid.boxKey(behind);
+        }
+        moveTo(target);
+    }
+
+    public BitSet reachable() {
+        return reachable(new BitSet(grid.size()), new int[grid.size()]);
+    }
+
+    public BitSet reachable(BitSet reachable, int[] stack) {
+        reachable.clear();
+        var top = 0;
+        reachable.set(player);
+        stack[top++] = player;
+        while (top > 0) {
+            int current = stack[--top];
+            for (Direction direction : Grid.MOVES) {
+                int next = grid.neighbour(current, direction);
+                if (isFree(next) && !reachable.get(next)) {
+                    reachable.set(next);
+                    stack[top++] = next;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    public void normalize() {
+        normalize(reachable());
+    }
+
+    public void normalize(BitSet reachable) {
+        moveTo(reachable.nextSetBit(0));
+    }
+
+    public List<Push> availablePushes() {
+        return availablePushes(reachable());
+    }
+
+    public List<Push> availablePushes(BitSet reachable) {
+        List<Push> answer = new ArrayList<>();
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            for (Direction direction : Grid.MOVES) {
+                int from = grid.neighbour(box, direction.opposite());
+                int target = grid.neighbour(box, direction);
+                if (from >= 0 && reachable.get(from) && isFree(target) && !grid.isDead(target)) {
+                    answer.add(new Push(box, direction));
+                }
+            }
+        }
+        return answer;
+    }
+
+    public void performPush(Push push) {
+        performPush(push.getBox(), push.getDirection());
+    }
+
+    public void performPush(int box, Direction direction) {
+        int target = grid.neighbour(box, direction);
+        boxes.clear(box);
+        boxes.set(target);
+        hash ^= grid.boxKey(box) ^ grid.boxKey(target);
+        moveTo(box);
+    }
+
+    public void undoPush(int box, Direction direction, int previousPlayer) {
+        int target = grid.neighbour(box, direction);
+        boxes.clear(target);
+        boxes.set(box);
+        hash ^= grid.boxKey(box) ^ grid.boxKey(target);
+        moveTo(previousPlayer);
+    }
+
+    /*
+     * Moves of the backward search: the player stands next to a box and steps
+     * away from it, the box follows in the same direction. A pull undoes the
+     * push of the box from its new cell in the opposite direction.
+     */
+    public List<Push> availablePulls(BitSet reachable) {
+        List<Push> answer = new ArrayList<>();
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            for (Direction direction : Grid.MOVES) {
+                int from = grid.neighbour(box, direction);
+                int to = grid.neighbour(from, direction);
+                if (from >= 0 && reachable.get(from) && isFree(to)) {
+                    answer.add(new Push(box, direction));
+                }
+            }
+        }
+        return answer;
+    }
+
+    public void performPull(Push pull) {
+        int box = pull.getBox();
+        int target = grid.neighbour(box, pull.getDirection());
+        boxes.clear(box);
+        boxes.set(target);
+        hash ^= grid.boxKey(box) ^ grid.boxKey(target);
+        moveTo(grid.neighbour(target, pull.getDirection()));
+    }
+
+    public Push pushTo(Layout next) {
+        var moved = (BitSet) boxes.clone();
+        moved.xor(next.boxes);
+        int from = moved.nextSetBit(0);
+        int to = moved.nextSetBit(from + 1);
+        if (!boxes.get(from)) {
+            int swap = from;
+            from = to;
+            to = swap;
+        }
+        for (Direction direction : Grid.MOVES) {
+            if (grid.neighbour(from, direction) == to) {
+                return new Push(from, direction);
+            }
+        }
+        return null;
+    }
+
+    /*
+     * The smallest image of this state under the symmetries of the grid, the
+     * layout itself when the board has none. Mirrored states share it, so
+     * keying a closed set by it never expands both. For normalized push states
+     * pass the reachable cells, the player of an image is then normalized too.
+     */
+    public Layout canonical(BitSet reachable) {
+        Layout best = this;
+        for (var s = 0; s < grid.symmetryCount(); s++) {
+            var cells = grid.symmetryCells(s);
+            var image = new BitSet(grid.size());
+            for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+                image.set(cells[box]);
+            }
+            var layout = new Layout(grid, imagePlayer(cells, reachable), image);
+            if (compare(layout, best) < 0) {
+                best = layout;
+            }
+        }
+        return best;
+    }
+
+    // Same order as canonical without building the images, for tables that only keep hashes
+    public long canonicalHash(BitSet reachable) {
+        long best = hash;
+        for (var s = 0; s < grid.symmetryCount(); s++) {
+            var cells = grid.symmetryCells(s);
+            long image = grid.playerKey(imagePlayer(cells, reachable));
+            for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+                image ^= grid.boxKey(cells[box]);
+            }
+            best = Math.min(best, image);
+        }
+        return best;
+    }
+
+    private int imagePlayer(int[] cells, BitSet reachable) {
+        if (reachable == null) {
+            return cells[player];
+        }
+        int answer = Integer.MAX_VALUE;
+        for (int cell = reachable.nextSetBit(0); cell >= 0; cell = reachable.nextSetBit(cell + 1)) {
+            answer = Math.min(answer, cells[cell]);
+        }
+        return answer;
+    }
+
+    // Total order, the hash decides unless two different states collide
+    private static int compare(Layout a, Layout b) {
+        if (a.hash != b.hash) {
+            return Long.compare(a.hash, b.hash);
+        }
+        if (a.player != b.player) {
+            return Integer.compare(a.player, b.player);
+        }
+        var difference = (BitSet) a.boxes.clone();
+        difference.xor(b.boxes);
+        int first = difference.nextSetBit(0);
+        return first < 0 ? 0 : a.boxes.get(first) ? -1 : 1;
+    }
+
+    private void moveTo(int cell) {
+        hash ^= grid.playerKey(player) ^ grid.playerKey(cell);
+        player = cell;
+    }
+
+    public Position getPlayerPosition() {
+        return grid.position(player);
+    }
+
+    public List<Position> getBoxPositions() {
+        List<Position> answer = new ArrayList<>(boxes.cardinality());
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            answer.add(grid.position(box));
+        }
+        return answer;
+    }
+
+    public boolean anyCompleted() {
+        return boxes.intersects(grid.getGoals());
+    }
+
+    public boolean isCompleted() {
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            if (!grid.isGoal(box)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Status checkStatus() {
+
+        if (isCompleted())
+            return Status.COMPLETED;
+
+        if (Deadlocks.isDeadlocked(this))
+            return Status.STUCKED;
+
+        if (availableMoves().isEmpty())
+            return Status.STUCKED;
+
+        return Status.CONTINUE;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        var layout = (Layout) o;
+        return hash == layout.hash && player == layout.player && boxes.equals(layout.boxes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash);
+    }
+}
@@ -10,12 +10,33 @@ import java.util.List;
 import java.util.Objects;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import karev.pavel.sokoban.Utils.Direction;
 import lombok.Getter;
 import lombok.SneakyThrows;
 
 @Getter
 public class Level {
 
+    // A level in its canonical orientation and the symmetry that turns the level into it
+    @Getter
+    public static class Canonical {
+        private final String text;
+        private final Symmetry symmetry;
+
+        Canonical(String text, Symmetry symmetry) {
+            this.text = text;
+            this.symmetry = symmetry;
+        }
+
+        public String fromLevel(String lurd) {
+            return symmetry.map(lurd);
+        }
+
+        public String toLevel(String lurd) {
+            return symmetry.inverse().map(lurd);
+        }
+    }
+
     Level(Level level) {
         this.walls = listDeepCopy(level.walls, Wall.class);
         this.baggs = listDeepCopy(level.baggs, Baggage.class);
@@ -25,6 +46,8 @@ public class Level {
         this.moves = level.moves;
         this.levelHeight = level.levelHeight;
         this.levelWidth = level.levelWidth;
+        this.grid = level.grid;
+        this.baggageCells = baggageCells(baggs, grid);
     }
 
     private List<Position> baggagePosition(char[][] level) {
@@ -76,6 +99,15 @@ public class Level {
         this.levelHeight = levelHeight;
         this.levelWidth = levelWidth;
         this.moves = 0;
+        this.grid = new Grid(map, levelHeight, levelWidth);
+        this.baggageCells = baggageCells(baggs, grid);
+    }
+
+    // Occupancy grid for O(1) collision lookups, kept in step with the baggage positions
+    private static Baggage[] baggageCells(List<Baggage> baggs, Grid grid) {
+        var cells = new Baggage[grid.size()];
+        baggs.forEach(baggage -> cells[grid.index(baggage.getPosition())] = baggage);
+        return cells;
     }
 
     private final List<Wall> walls;
@@ -86,38 +118,54 @@ public class Level {
     private final int levelHeight;
     private final int levelWidth;
     private final int moves;
+    private final Grid grid;
+    private final Baggage[] baggageCells;
 
     public static Level loadLevel(String path) throws IOException {
-        List<String> strings = Files.readAllLines(Paths.get(path));
+        return parseLevel(Files.readAllLines(Paths.get(path)));
+    }
+
+    // Accepts both the 'X' areas of the bundled levels and the standard XSB '.', '*' and '+'
+    public static Level parseLevel(List<String> strings) {
         int levelWidth = strings.stream().max(Comparator.comparingInt(String::length))
             .orElse("")
             .length();
         int levelHeight = strings.size();
         char[][] level = new char[levelHeight][levelWidth];
+        for (var x = 0; x < strings.size(); x++) {
+            strings.get(x).getChars(0, strings.get(x).length(), level[x], 0);
+        }
+        return ofMap(level, levelHeight, levelWidth);
+    }
 
+    // Cells past the end of a row are left as '\0' and count as walls
+    static Level ofMap(char[][] level, int levelHeight, int levelWidth) {
         List<Wall> walls = new ArrayList<>();
         List<Baggage> baggs = new ArrayList<>();
         List<Area> areas = new ArrayList<>();
         Player player = null;
 
-        for (var x = 0; x < strings.size(); x++) {
-            for (var y = 0; y < strings.get(x).length(); y++) {
-                level[x][y] = strings.get(x).charAt(y);
-
-                if (level[x][y] == '$') {
+        for (var x = 0; x < levelHeight; x++) {
+            for (var y = 0; y < levelWidth; y++) {
+                if (level[x][y] == '$' || level[x][y] == '*') {
                     baggs.add(new Baggage(x, y));
                 }
                 if (level[x][y] == '#') {
                     walls.add(new Wall(x, y));
                 }
-                if (level[x][y] == 'X') {
+                if (isArea(level[x][y])) {
                     areas.add(new Area(x, y));
                 }
-                if (level[x][y] == '@') {
+                if (level[x][y] == '@' || level[x][y] == '+') {
                     player = new Player(x, y);
                 }
             }
         }
+
+        if (Objects.isNull(player)) {
+            throw new IllegalArgumentException("Level has no player");
+        }
+
         return new Level(
             walls,
             baggs,
@@ -128,6 +176,76 @@ public class Level {
             levelWidth);
     }
 
+    /*
+     * The board as text in whichever of the 8 symmetries sorts first. Walls come
+     * from the map, boxes and the player from the current position so a level
+     * part way through is keyed by what is left to solve. The board is cropped
+     * to its non-empty cells first, padding does not change the text.
+     */
+    public Canonical canonical() {
+        var layout = Layout.of(this);
+        int height = grid.getHeight();
+        int width = grid.getWidth();
+        var cells = new char[height][width];
+        int top = height;
+        int bottom = -1;
+        int left = width;
+        int right = -1;
+        for (var x = 0; x < height; x++) {
+            for (var y = 0; y < width; y++) {
+                int cell = grid.index(x, y);
+                char c;
+                if (y < map[x].length && map[x][y] == '#') {
+                    c = '#';
+                } else if (layout.isBox(cell)) {
+                    c = grid.isGoal(cell) ? '*' : '$';
+                } else if (layout.getPlayer() == cell) {
+                    c = grid.isGoal(cell) ? '+' : '@';
+                } else {
+                    c = grid.isGoal(cell) ? '.' : ' ';
+                }
+                cells[x][y] = c;
+                if (c != ' ') {
+                    top = Math.min(top, x);
+                    bottom = Math.max(bottom, x);
+                    left = Math.min(left, y);
+                    right = Math.max(right, y);
+                }
+            }
+        }
+
+        Canonical best = null;
+        for (Symmetry symmetry : Symmetry.values()) {
+            var text = render(cells, top, left, bottom - top + 1, right - left + 1, symmetry);
+            if (best == null || text.compareTo(best.text) < 0) {
+                best = new Canonical(text, symmetry);
+            }
+        }
+        return best;
+    }
+
+    private static String render(char[][] cells, int top, int left, int height, int width, Symmetry symmetry) {
+        var rows = new char[symmetry.height(height, width)][symmetry.width(height, width)];
+        for (var x = 0; x < height; x++) {
+            for (var y = 0; y < width; y++) {
+                rows[symmetry.x(x, y, height, width)][symmetry.y(x, y, height, width)] = cells[top + x][left + y];
+            }
+        }
+        var text = new StringBuilder();
+        for (char[] row : rows) {
+            int end = row.length;
+            while (end > 0 && row[end - 1] == ' ') {
+                end--;
+            }
+            text.append(row, 0, end).append('\n');
+        }
+        return text.toString();
+    }
+
+    static boolean isArea(char c) {
+        return c == 'X' || c == '.' || c == '*' || c == '+';
+    }
+
     protected Collection<Position> possibleMovies(Position position, Predicate<Character> movePredicate) {
         Collection<Position> answer = new ArrayList<>();
         if (position.x + 1 < levelHeight && movePredicate.test(map[position.x + 1][position.y])) {
@@ -148,6 +266,41 @@ public class Level {
         return answer;
     }
 
+    public Position neighbour(Position position, Direction direction) {
+        switch (direction) {
+            case UP:
+                return new Position(position.x - 1, position.y);
+            case DOWN:
+                return new Position(position.x + 1, position.y);
+            case LEFT:
+                return new Position(position.x, position.y - 1);
+            case RIGHT:
+                return new Position(position.x, position.y + 1);
+            case NONE:
+            default:
+                return position;
+        }
+    }
+
+    private boolean isInside(Position position) {
+        return position.x >= 0 && position.y >= 0 && position.x < levelHeight && position.y < levelWidth;
+    }
+
+    public boolean isWall(Position position) {
+        return !isInside(position) || grid.isWall(grid.index(position));
+    }
+
+    public Baggage baggageAt(Position position) {
+        return isInside(position) ? baggageCells[grid.index(position)] : null;
+    }
+
+    public void moveBaggage(Baggage baggage, Direction direction) {
+        var target = neighbour(baggage.getPosition(), direction);
+        baggageCells[grid.index(baggage.getPosition())] = null;
+        baggageCells[grid.index(target)] = baggage;
+        baggage.setPosition(target);
+    }
+
     public Collection<Position> availableMoves() {
         return possibleMovies(player.getPosition(), character -> character != '#');
     }
@@ -181,12 +334,10 @@ public class Level {
 
         var currentPlayerPosition = player.getPosition();
         if (map[newPosition.x][newPosition.y] == '$') {
-            Baggage baggage = getBaggs()
-                .stream()
-                .filter(b -> b.getPosition().equals(newPosition))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Baggage cannot be null"));
-
+            Baggage baggage = baggageAt(newPosition);
+            if (Objects.isNull(baggage)) {
+                throw new RuntimeException("Baggage cannot be null");
+            }
 
             Position baggNewPosition = null;
             if (currentPlayerPosition.x < newPosition.x) { //DOWN
@@ -212,6 +363,8 @@ public class Level {
             }
 
             map[baggNewPosition.x][baggNewPosition.y] = '$';
+            baggageCells[grid.index(baggage.getPosition())] = null;
+            baggageCells[grid.index(baggNewPosition)] = baggage;
             baggage.setPosition(new Position(baggNewPosition));
         }
         map[currentPlayerPosition.x][currentPlayerPosition.y] = ' ';
@@ -237,27 +390,11 @@ public class Level {
     public boolean isCompleted() {
         return getBaggs()
             .stream()
-            .allMatch(baggage -> getAreas()
-                .stream()
-                .anyMatch(area -> area.getPosition().equals(baggage.getPosition())));
+            .allMatch(baggage -> grid.isGoal(grid.index(baggage.getPosition())));
     }
 
+    // Delegates to the solvers' check: dead squares, frozen boxes and closed corrals
     public Status checkStatus() {
-
-        if (isCompleted())
-            return Status.COMPLETED;
-
-        boolean allBoxesAreStucked = baggs
-            .stream()
-            .allMatch(baggage -> possibleMovies(baggage.getPosition(), character -> character != '#').isEmpty());
-
-        if (allBoxesAreStucked)
-            return Status.STUCKED;
-
-        if (possibleMovies(player.getPosition(), character -> character != '#').isEmpty())
-            return Status.STUCKED;
-
-
-        return Status.CONTINUE;
+        return Layout.of(this).checkStatus();
     }
 }
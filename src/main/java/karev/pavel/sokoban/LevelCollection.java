@@ -0,0 +1,170 @@
+package karev.pavel.sokoban;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.Getter;
+
+/*
+ * Reads files holding one or more levels: either the bundled single-level
+ * format or XSB/SOK collections where levels are separated by blank or
+ * comment lines. Files are memory-mapped and scanned once for the byte range
+ * of every level, the lines of a level are only decoded when it is parsed.
+ */
+public class LevelCollection {
+
+    // A named level that is only decoded when parse is called
+    public static class Entry {
+        @Getter
+        private final String name;
+        private final Supplier<Level> parser;
+
+        public Entry(String name, List<String> lines) {
+            this(name, () -> Level.parseLevel(lines));
+        }
+
+        public Entry(String name, Supplier<Level> parser) {
+            this.name = name;
+            this.parser = parser;
+        }
+
+        public Level parse() {
+            return parser.get();
+        }
+    }
+
+    private final String fileName;
+    private final ByteBuffer content;
+    // Start and end offset of every level, two ints per level
+    private int[] bounds = new int[64];
+    private int size;
+
+    private LevelCollection(String fileName, ByteBuffer content) {
+        this.fileName = fileName;
+        this.content = content;
+        index();
+    }
+
+    public static LevelCollection open(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("Collection is too large to map: " + path);
+            }
+            return new LevelCollection(path.getFileName().toString(), channel.map(MapMode.READ_ONLY, 0, length));
+        }
+    }
+
+    public static List<Entry> read(Path path) throws IOException {
+        return open(path).entries();
+    }
+
+    public static List<Entry> parse(String fileName, List<String> lines) {
+        var bytes = String.join("\n", lines).getBytes(StandardCharsets.ISO_8859_1);
+        return new LevelCollection(fileName, ByteBuffer.wrap(bytes)).entries();
+    }
+
+    private void index() {
+        int limit = content.limit();
+        int blockStart = -1;
+        int blockEnd = -1;
+        int lineStart = 0;
+        for (var i = 0; i <= limit; i++) {
+            if (i < limit && content.get(i) != '\n') {
+                continue;
+            }
+            int lineEnd = i > lineStart && content.get(i - 1) == '\r' ? i - 1 : i;
+            if (isLevelLine(content, lineStart, lineEnd)) {
+                if (blockStart < 0) {
+                    blockStart = lineStart;
+                }
+                blockEnd = lineEnd;
+            } else if (blockStart >= 0) {
+                addBlock(blockStart, blockEnd);
+                blockStart = -1;
+            }
+            lineStart = i + 1;
+        }
+        if (blockStart >= 0) {
+            addBlock(blockStart, blockEnd);
+        }
+    }
+
+    private void addBlock(int start, int end) {
+        if (size * 2 == bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[size * 2] = start;
+        bounds[size * 2 + 1] = end;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String name(int index) {
+        return size == 1 ? fileName : fileName + "#" + (index + 1);
+    }
+
+    public Entry get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Level " + index + " of " + size);
+        }
+        return new Entry(name(index), () -> Level.parseLevel(lines(index)));
+    }
+
+    public Level level(int index) {
+        return get(index).parse();
+    }
+
+    // A view over the index, nothing is decoded until an entry is parsed
+    public List<Entry> entries() {
+        return new AbstractList<>() {
+            @Override
+            public Entry get(int index) {
+                return LevelCollection.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    // Reads through a duplicate, so entries may be parsed from several threads at once
+    private List<String> lines(int index) {
+        int start = bounds[index * 2];
+        int end = bounds[index * 2 + 1];
+        var bytes = new byte[end - start];
+        content.duplicate().position(start).get(bytes);
+        List<String> lines = new ArrayList<>();
+        for (String line : new String(bytes, StandardCharsets.ISO_8859_1).split("\n")) {
+            lines.add(line.endsWith("\r") ? line.substring(0, line.length() - 1) : line);
+        }
+        return lines;
+    }
+
+    static boolean isLevelLine(ByteBuffer content, int from, int to) {
+        var hasWall = false;
+        for (var i = from; i < to; i++) {
+            char c = (char) (content.get(i) & 0xFF);
+            if (c == '#') {
+                hasWall = true;
+            } else if ("@+$*.X -_".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return hasWall;
+    }
+}
@@ -0,0 +1,216 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import karev.pavel.sokoban.Level.Status;
+import karev.pavel.sokoban.SolverMetrics.Phase;
+import lombok.Getter;
+import lombok.Setter;
+
+/*
+ * The four MCTS phases over one tree. Several searches may run over the same
+ * tree and transposition table at once, they only share atomic node statistics.
+ */
+@Getter
+@Setter
+class MctsSearch {
+
+    private static final int VIRTUAL_LOSS = 3;
+    private static final int DEFAULT_ROLLOUT_DEPTH = 20;
+    private static final double DEFAULT_ROLLOUT_EPSILON = 0.1;
+
+    private final SearchMode searchMode;
+    private final TranspositionTable transpositions;
+    private final SearchLimits limits;
+    private final long startNanos;
+    private final AtomicLong expandedNodes;
+    private final AtomicBoolean stopped;
+    private final SolverMetrics metrics = SolverMetrics.global();
+
+    private boolean virtualLoss;
+    private Random random;
+    private double randomChildRate;
+    private Predicate<Layout> allowed = layout -> true;
+    private RolloutPolicy rolloutPolicy = RolloutPolicy.NONE;
+    private int rolloutDepth = DEFAULT_ROLLOUT_DEPTH;
+    private double rolloutEpsilon = DEFAULT_ROLLOUT_EPSILON;
+    private Rollout rollout;
+
+    MctsSearch(SearchMode searchMode,
+               TranspositionTable transpositions,
+               SearchLimits limits,
+               long startNanos,
+               AtomicLong expandedNodes,
+               AtomicBoolean stopped) {
+        this.searchMode = searchMode;
+        this.transpositions = transpositions;
+        this.limits = limits;
+        this.startNanos = startNanos;
+        this.expandedNodes = expandedNodes;
+        this.stopped = stopped;
+    }
+
+    // Returns the path from the root to a completed node, or null when stopped or out of iterations
+    List<Node> run(Node rootNode, long iterations) {
+        for (long i = 0; i < iterations && !stopped.get(); i++) {
+            if (limits.isExceeded(expandedNodes.get(), startNanos)) {
+                stopped.set(true);
+                return null;
+            }
+            // Phase 1 - Selection
+            long phaseStart = System.nanoTime();
+            var path = selectPromisingPath(rootNode);
+            int selected = path.size();
+            limits.reportDepth(selected - 1);
+            metrics.depth(selected - 1);
+            var promisingNode = path.get(path.size() - 1);
+            phaseStart = endPhase(Phase.SELECTION, phaseStart);
+            // Phase 2 - Expansion
+            expandNode(promisingNode, path);
+            phaseStart = endPhase(Phase.EXPANSION, phaseStart);
+            // Phase 3 - Simulation
+            Status playoutResult;
+            if (isDeadEnd(promisingNode, path)) {
+                // Every child leads back onto the path, without this the same path is selected forever
+                promisingNode.getState().setScore(Integer.MIN_VALUE);
+                playoutResult = Status.STUCKED;
+            } else {
+                if (!promisingNode.getChildArray().isEmpty()) {
+                    var nodeToExplore = pickChildToExplore(promisingNode);
+                    if (path.stream().noneMatch(node -> node == nodeToExplore)) {
+                        path.add(nodeToExplore);
+                    }
+                }
+                playoutResult = simulateRandomPlayout(path, promisingNode);
+            }
+            int reward = playoutResult == Status.CONTINUE ? rollout().play(path.get(path.size() - 1).getState().getLayout()) : 0;
+            phaseStart = endPhase(Phase.SIMULATION, phaseStart);
+            // Phase 4 - Update
+            backPropogation(path, selected, playoutResult, reward);
+            endPhase(Phase.BACKPROPAGATION, phaseStart);
+
+            if (Status.COMPLETED == playoutResult) {
+                stopped.set(true);
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private long endPhase(Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        metrics.phase(phase, now - phaseStart);
+        return now;
+    }
+
+    private boolean isDeadEnd(Node node, List<Node> path) {
+        var children = node.getChildArray();
+        return !children.isEmpty() && children.stream().allMatch(child -> path.stream().anyMatch(ancestor -> ancestor == child));
+    }
+
+    private Node pickChildToExplore(Node node) {
+        if (Objects.nonNull(random) && random.nextDouble() < randomChildRate) {
+            var children = node.getChildArray();
+            return children.get(random.nextInt(children.size()));
+        }
+        return node.getBestChildNode();
+    }
+
+    private Rollout rollout() {
+        if (Objects.isNull(rollout)) {
+            rollout = new Rollout(rolloutPolicy, rolloutDepth, rolloutEpsilon, Objects.isNull(random) ? new Random(0) : random);
+        }
+        return rollout;
+    }
+
+    private void backPropogation(List<Node> path, int selected, Status status, int reward) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            var tempNode = path.get(i);
+            if (virtualLoss && i < selected) {
+                tempNode.getState().removeVirtualLoss(VIRTUAL_LOSS);
+            }
+            tempNode.getState().incrementVisit();
+            if (tempNode.getState().hasCompletedBaggages()) {
+                tempNode.getState().addScore(50);
+            }
+            tempNode.getState().addScore(reward);
+            tempNode.getState().setStatus(status);
+        }
+    }
+
+    private Status simulateRandomPlayout(List<Node> path, Node expanded) {
+        var leafNode = path.get(path.size() - 1);
+        var leaf = leafNode.getState().getLayout();
+        var status = leaf.checkStatus();
+        if (status == Status.CONTINUE && searchMode == SearchMode.PUSH && leaf.availablePushes().isEmpty()) {
+            status = Status.STUCKED;
+        }
+        // Expanded without children means every successor was pruned, a playout from here only misleads
+        if (status == Status.CONTINUE && leafNode == expanded && leafNode.getChildArray().isEmpty()) {
+            status = Status.STUCKED;
+        }
+
+        if (status == Status.STUCKED && path.size() > 1) {
+            path.get(path.size() - 2).getState().setScore(Integer.MIN_VALUE);
+        }
+
+        return status;
+    }
+
+    private List<Node> selectPromisingPath(Node rootNode) {
+        List<Node> path = new ArrayList<>();
+        Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        var node = rootNode;
+        while (node != null && visited.add(node)) {
+            path.add(node);
+            // Other threads see the nodes on this path as already visited until backpropagation
+            if (virtualLoss) {
+                node.getState().addVirtualLoss(VIRTUAL_LOSS);
+            }
+            if (node.getChildArray().isEmpty()) {
+                break;
+            }
+            // Transpositions turn the tree into a graph, never step back onto the current path
+            node = UCT.findBestNodeWithUCT(node, child -> !visited.contains(child));
+        }
+        return path;
+    }
+
+    private void expandNode(Node node, List<Node> path) {
+        synchronized (node) {
+            if (!node.getChildArray().isEmpty() || node.getState().getLayout().isCompleted()) {
+                return;
+            }
+            List<Node> children = new ArrayList<>();
+            List<State> possibleStates = node.getState().getAllPossibleStates(searchMode);
+            possibleStates.forEach(state -> {
+                if (!allowed.test(state.getLayout())) {
+                    return;
+                }
+                Node newNode = new Node(state);
+                newNode.setParent(node);
+                var existing = transpositions.putIfAbsent(newNode);
+                if (Objects.isNull(existing)) {
+                    metrics.nodeCreated();
+                    children.add(newNode);
+                    return;
+                }
+                metrics.transpositionHit();
+                if (path.stream().noneMatch(ancestor -> ancestor == existing)) {
+                    children.add(existing);
+                }
+            });
+            node.setChildArray(children);
+            expandedNodes.incrementAndGet();
+            metrics.nodeExpanded();
+        }
+    }
+}
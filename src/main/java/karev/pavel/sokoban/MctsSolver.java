@@ -0,0 +1,158 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+public class MctsSolver implements Solver {
+
+    static final int TRANSPOSITION_TABLE_SIZE = 1 << 20;
+    static final RolloutPolicy DEFAULT_ROLLOUT_POLICY = RolloutPolicy.fromProperty(RolloutPolicy.EPSILON_GREEDY);
+
+    private final SearchMode searchMode;
+    private final SearchLimits limits;
+    private final RolloutPolicy rolloutPolicy;
+    private final boolean keepTree;
+    // Kept between solves when keepTree is set, see promote
+    private Tree tree;
+    private TranspositionTable transpositions;
+
+    public MctsSolver() {
+        this(SearchMode.PUSH, SearchLimits.NONE);
+    }
+
+    public MctsSolver(SearchMode searchMode, SearchLimits limits) {
+        this(searchMode, limits, DEFAULT_ROLLOUT_POLICY);
+    }
+
+    public MctsSolver(SearchMode searchMode, SearchLimits limits, RolloutPolicy rolloutPolicy) {
+        this(searchMode, limits, rolloutPolicy, false);
+    }
+
+    // With keepTree every solve continues the tree of the previous one and calls are serialized
+    public MctsSolver(SearchMode searchMode, SearchLimits limits, RolloutPolicy rolloutPolicy, boolean keepTree) {
+        this.searchMode = searchMode;
+        this.limits = limits;
+        this.rolloutPolicy = rolloutPolicy;
+        this.keepTree = keepTree;
+    }
+
+    @Override
+    public Optional<Solution> solve(Level level) {
+        return solve(level, limits);
+    }
+
+    public Optional<Solution> solve(Level level, SearchLimits limits) {
+        var metrics = SolverMetrics.global();
+        var event = metrics.solveStarted();
+        Optional<Solution> solution;
+        if (keepTree) {
+            synchronized (this) {
+                solution = search(level, limits);
+            }
+        } else {
+            solution = search(level, limits);
+        }
+        metrics.solveFinished(event, "mcts", solution);
+        return solution;
+    }
+
+    /*
+     * Moves the kept tree along with the game. search calls it with the position
+     * it is asked to solve, so manual moves cost nothing until the next solve.
+     * When the position is already in the tree its node becomes the root through
+     * Tree.setRoot and the nodes no longer reachable from it are dropped from the
+     * transposition table in place, otherwise the tree starts over.
+     */
+    public synchronized void promote(Level level) {
+        if (keepTree) {
+            promote(rootLayout(Layout.of(level), searchMode));
+        }
+    }
+
+    private void promote(Layout rootLayout) {
+        if (Objects.nonNull(tree) && tree.getRoot().getState().getLayout().getGrid() == rootLayout.getGrid()) {
+            if (tree.getRoot().getState().getLayout().equals(rootLayout)) {
+                return;
+            }
+            var node = transpositions.get(rootLayout);
+            if (Objects.nonNull(node)) {
+                node.setParent(null);
+                tree.setRoot(node);
+                var reachable = reachableFrom(node);
+                transpositions.retainIf(reachable::contains);
+                return;
+            }
+        }
+        tree = new Tree(new Node(new State(rootLayout)));
+        transpositions = new TranspositionTable(TRANSPOSITION_TABLE_SIZE);
+        transpositions.put(tree.getRoot());
+    }
+
+    private static Set<Node> reachableFrom(Node root) {
+        var seen = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        var queue = new ArrayDeque<Node>();
+        seen.add(root);
+        queue.add(root);
+        while (!queue.isEmpty()) {
+            for (Node child : queue.poll().getChildArray()) {
+                if (seen.add(child)) {
+                    queue.add(child);
+                }
+            }
+        }
+        return seen;
+    }
+
+    private Optional<Solution> search(Level level, SearchLimits limits) {
+        long startNanos = System.nanoTime();
+        var start = Layout.of(level);
+        var rootLayout = rootLayout(start, searchMode);
+        Tree tree;
+        TranspositionTable transpositions;
+        if (keepTree) {
+            promote(rootLayout);
+            tree = this.tree;
+            transpositions = this.transpositions;
+        } else {
+            tree = new Tree(new Node(new State(rootLayout)));
+            transpositions = new TranspositionTable(TRANSPOSITION_TABLE_SIZE);
+            transpositions.put(tree.getRoot());
+        }
+        var expandedNodes = new AtomicLong();
+
+        var search = new MctsSearch(searchMode, transpositions, limits, startNanos, expandedNodes, new AtomicBoolean());
+        search.setRolloutPolicy(rolloutPolicy);
+        var winPath = search.run(tree.getRoot(), Long.MAX_VALUE);
+        if (Objects.isNull(winPath)) {
+            return Optional.empty();
+        }
+        return Optional.of(toSolution(searchMode, start, layouts(winPath), expandedNodes.get()));
+    }
+
+    static Layout rootLayout(Layout start, SearchMode searchMode) {
+        var rootLayout = new Layout(start);
+        if (searchMode == SearchMode.PUSH) {
+            rootLayout.normalize();
+        }
+        return rootLayout;
+    }
+
+    static List<Layout> layouts(List<Node> path) {
+        return path.stream().map(node -> node.getState().getLayout()).collect(Collectors.toList());
+    }
+
+    static Solution toSolution(SearchMode searchMode, Layout start, List<Layout> layouts, long expandedNodes) {
+        if (searchMode == SearchMode.PUSH) {
+            return Solution.ofPushes(start, layouts, expandedNodes);
+        }
+        return Solution.ofSteps(layouts, expandedNodes);
+    }
+}
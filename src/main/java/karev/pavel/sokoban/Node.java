@@ -1,11 +1,9 @@
 package karev.pavel.sokoban;
 
-import java.util.AbstractMap.SimpleEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
 import lombok.Data;
 import lombok.ToString;
 
@@ -15,7 +13,7 @@ public class Node {
 
     State state;
     Node parent;
-    List<Node> childArray;
+    volatile List<Node> childArray;
 
     public Node() {
         this.state = new State();
@@ -46,33 +44,13 @@ public class Node {
     }
 
     public Node getBestChildNode() {
-        var entry = getChildArray()
+        return getChildArray()
             .stream()
-            .map(n -> {
-                var level = n.getState().getLevel();
-                var playerPosition = level.getPlayer().getPosition();
-                var filteredBags = level.getBaggs()
-                    .stream()
-                    //Ignore already completed baggages
-                    .filter(baggage -> level.getAreas().stream()
-                        .noneMatch(area -> area.getPosition().equals(baggage.getPosition())))
-                    .collect(Collectors.toList());
-
-                if (filteredBags.size() < 1) {
-                    return new SimpleEntry<>(n, Integer.MIN_VALUE);
-                }
-
-                return new SimpleEntry<>(n, filteredBags
-                    .stream()
-                    .map(baggage -> Utils.pathFinder(playerPosition, baggage.getPosition(), level,
-                                               character -> character != '#').size())
-                    .reduce(Integer::sum)
-                    .orElseThrow());
-            })
-            .min((entry1, entry2) -> entry2.getValue().compareTo(entry1.getValue()))
+            .min(Comparator.comparingInt(n -> {
+                var layout = n.getState().getLayout();
+                return layout.getGrid().getHeuristic().greedyEstimate(layout);
+            }))
             .orElseThrow();
-
-        return entry.getKey();
     }
 
     public Node getRandomChildNode() {
@@ -0,0 +1,167 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.SneakyThrows;
+
+public class ParallelMctsSolver implements Solver {
+
+    public enum Parallelism {
+        // Independent trees per thread, root visit counts and scores merged after every round
+        ROOT,
+        // One tree grown by all threads, kept apart by virtual loss
+        TREE
+    }
+
+    private static final int ROUND_ITERATIONS = 2_000;
+    private static final double RANDOM_CHILD_RATE = 0.2;
+
+    private final Parallelism parallelism;
+    private final int threads;
+    private final SearchMode searchMode;
+    private final SearchLimits limits;
+
+    public ParallelMctsSolver(Parallelism parallelism, int threads) {
+        this(parallelism, threads, SearchMode.PUSH, SearchLimits.NONE);
+    }
+
+    public ParallelMctsSolver(Parallelism parallelism, int threads, SearchMode searchMode, SearchLimits limits) {
+        this.parallelism = parallelism;
+        this.threads = threads;
+        this.searchMode = searchMode;
+        this.limits = limits;
+    }
+
+    @Override
+    public Optional<Solution> solve(Level level) {
+        var metrics = SolverMetrics.global();
+        var event = metrics.solveStarted();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Optional<Solution> solution = Optional.empty();
+        try {
+            solution = parallelism == Parallelism.TREE ? solveSharedTree(level, executor) : solveRootParallel(level, executor);
+            return solution;
+        } finally {
+            executor.shutdownNow();
+            metrics.solveFinished(event, "mcts-" + parallelism.name().toLowerCase(), solution);
+        }
+    }
+
+    private Optional<Solution> solveSharedTree(Level level, ExecutorService executor) {
+        long startNanos = System.nanoTime();
+        var start = Layout.of(level);
+        var root = new Node(new State(MctsSolver.rootLayout(start, searchMode)));
+        var transpositions = new TranspositionTable(MctsSolver.TRANSPOSITION_TABLE_SIZE);
+        transpositions.put(root);
+        var expandedNodes = new AtomicLong();
+        var stopped = new AtomicBoolean();
+
+        List<Callable<List<Node>>> workers = new ArrayList<>();
+        for (var i = 0; i < threads; i++) {
+            var search = new MctsSearch(searchMode, transpositions, limits, startNanos, expandedNodes, stopped);
+            search.setVirtualLoss(true);
+            search.setRandom(new Random(i));
+            search.setRolloutPolicy(MctsSolver.DEFAULT_ROLLOUT_POLICY);
+            search.setRandomChildRate(i == 0 ? 0 : RANDOM_CHILD_RATE);
+            workers.add(() -> search.run(root, Long.MAX_VALUE));
+        }
+
+        var winPath = firstResult(invokeAll(executor, workers));
+        return Optional.ofNullable(winPath)
+            .map(path -> MctsSolver.toSolution(searchMode, start, MctsSolver.layouts(path), expandedNodes.get()));
+    }
+
+    /*
+     * Every thread grows its own tree. After each round the statistics of the root
+     * children are summed over all trees and written back as the per-tree average,
+     * so every tree keeps searching but agrees on which first pushes look best.
+     */
+    private Optional<Solution> solveRootParallel(Level level, ExecutorService executor) {
+        long startNanos = System.nanoTime();
+        var start = Layout.of(level);
+        var rootLayout = MctsSolver.rootLayout(start, searchMode);
+        var expandedNodes = new AtomicLong();
+        var stopped = new AtomicBoolean();
+
+        List<Node> roots = new ArrayList<>();
+        List<Callable<List<Node>>> workers = new ArrayList<>();
+        for (var i = 0; i < threads; i++) {
+            var root = new Node(new State(rootLayout));
+            var transpositions = new TranspositionTable(MctsSolver.TRANSPOSITION_TABLE_SIZE);
+            transpositions.put(root);
+            var search = new MctsSearch(searchMode, transpositions, limits, startNanos, expandedNodes, stopped);
+            search.setRandom(new Random(i));
+            search.setRolloutPolicy(MctsSolver.DEFAULT_ROLLOUT_POLICY);
+            search.setRandomChildRate(i == 0 ? 0 : RANDOM_CHILD_RATE);
+            roots.add(root);
+            workers.add(() -> search.run(root, ROUND_ITERATIONS));
+        }
+
+        while (!stopped.get()) {
+            var winPath = firstResult(invokeAll(executor, workers));
+            if (Objects.nonNull(winPath)) {
+                return Optional.of(MctsSolver.toSolution(searchMode, start, MctsSolver.layouts(winPath), expandedNodes.get()));
+            }
+            if (roots.stream().allMatch(root -> root.getChildArray().isEmpty())) {
+                break;
+            }
+            mergeRootStatistics(roots);
+        }
+        return Optional.empty();
+    }
+
+    // Children are averaged over the trees that expanded them, every root then counts the visits of its merged children
+    private void mergeRootStatistics(List<Node> roots) {
+        Map<Layout, long[]> merged = new HashMap<>();
+        roots.forEach(root -> root.getChildArray().forEach(child -> {
+            var totals = merged.computeIfAbsent(child.getState().getLayout(), layout -> new long[3]);
+            totals[0] += child.getState().getVisitCount();
+            totals[1] += child.getState().getScore();
+            totals[2]++;
+        }));
+        roots.forEach(root -> {
+            long visits = 0;
+            for (Node child : root.getChildArray()) {
+                var totals = merged.get(child.getState().getLayout());
+                child.getState().setVisitCount((int) (totals[0] / totals[2]));
+                child.getState().setScore((int) (totals[1] / totals[2]));
+                visits += child.getState().getVisitCount();
+            }
+            if (!root.getChildArray().isEmpty()) {
+                root.getState().setVisitCount((int) visits);
+            }
+        });
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    private static <T> List<Future<T>> invokeAll(ExecutorService executor, List<Callable<T>> workers) {
+        return executor.invokeAll(workers);
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    private static List<Node> firstResult(List<Future<List<Node>>> futures) {
+        for (Future<List<Node>> future : futures) {
+            try {
+                var path = future.get();
+                if (Objects.nonNull(path)) {
+                    return path;
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Solver thread failed", e.getCause());
+            }
+        }
+        return null;
+    }
+}
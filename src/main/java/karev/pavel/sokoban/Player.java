@@ -1,6 +1,5 @@
 package karev.pavel.sokoban;
 
-import javax.swing.ImageIcon;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,18 +8,10 @@ import lombok.Setter;
 public class Player extends Actor {
 
     public Player(Player player) {
-        super(player.x(), player.y());
-        initPlayer();
+        super(player.x(), player.y(), Sprite.PLAYER);
     }
 
     public Player(int x, int y) {
-        super(x, y);
-        initPlayer();
-    }
-
-    private void initPlayer() {
-        var icon = new ImageIcon(ClassLoader.getSystemResource("sokoban.png"));
-        var image = icon.getImage();
-        setOriginalImage(image);
+        super(x, y, Sprite.PLAYER);
     }
 }
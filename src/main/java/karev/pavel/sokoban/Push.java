@@ -0,0 +1,16 @@
+package karev.pavel.sokoban;
+
+import karev.pavel.sokoban.Utils.Direction;
+import lombok.Data;
+
+@Data
+public class Push {
+
+    private final int box;
+    private final Direction direction;
+
+    public Push(int box, Direction direction) {
+        this.box = box;
+        this.direction = direction;
+    }
+}
@@ -0,0 +1,158 @@
+package karev.pavel.sokoban;
+
+import java.util.BitSet;
+import java.util.Random;
+import karev.pavel.sokoban.Utils.Direction;
+
+/*
+ * Playout of up to depth pushes from a tree leaf on one scratch layout owned
+ * by a single search thread. Legal pushes are collected into a reused int
+ * buffer as box * 4 + direction, the layout is copied in place, so a playout
+ * allocates nothing beyond the deadlock checks of DEADLOCK_AWARE.
+ */
+class Rollout {
+
+    static final int MAX_REWARD = 100;
+
+    private final RolloutPolicy policy;
+    private final int depth;
+    private final double epsilon;
+    private final Random random;
+
+    private Layout scratch;
+    private BitSet reachable;
+    private int[] stack;
+    private int[] pushes;
+
+    Rollout(RolloutPolicy policy, int depth, double epsilon, Random random) {
+        this.policy = policy;
+        this.depth = depth;
+        this.epsilon = epsilon;
+        this.random = random;
+    }
+
+    /*
+     * Reward in [0, MAX_REWARD]: the share of boxes on areas at the end of the
+     * playout, full reward when the playout completes the level and half of it
+     * when the playout runs into a position without pushes.
+     */
+    int play(Layout leaf) {
+        if (policy == RolloutPolicy.NONE) {
+            return 0;
+        }
+        prepare(leaf);
+        for (var step = 0; step < depth; step++) {
+            if (scratch.isCompleted()) {
+                return MAX_REWARD;
+            }
+            int count = collectPushes();
+            int push = count == 0 ? -1 : choose(count);
+            if (push < 0) {
+                return reward() / 2;
+            }
+            scratch.performPush(push / Grid.MOVES.length, Grid.MOVES[push % Grid.MOVES.length]);
+        }
+        return scratch.isCompleted() ? MAX_REWARD : reward();
+    }
+
+    private void prepare(Layout leaf) {
+        var grid = leaf.getGrid();
+        if (scratch == null || scratch.getGrid() != grid) {
+            scratch = new Layout(leaf);
+            reachable = new BitSet(grid.size());
+            stack = new int[grid.size()];
+            pushes = new int[grid.size() * Grid.MOVES.length];
+        } else {
+            scratch.copyFrom(leaf);
+        }
+    }
+
+    private int collectPushes() {
+        scratch.reachable(reachable, stack);
+        var grid = scratch.getGrid();
+        var boxes = scratch.getBoxes();
+        int count = 0;
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            for (Direction direction : Grid.MOVES) {
+                int from = grid.neighbour(box, direction.opposite());
+                int target = grid.neighbour(box, direction);
+                if (from >= 0 && reachable.get(from) && scratch.isFree(target) && !grid.isDead(target)) {
+                    pushes[count++] = box * Grid.MOVES.length + direction.ordinal();
+                }
+            }
+        }
+        return count;
+    }
+
+    private int choose(int count) {
+        switch (policy) {
+            case EPSILON_GREEDY:
+                return random.nextDouble() < epsilon ? pushes[random.nextInt(count)] : greedy(count);
+            case DEADLOCK_AWARE:
+                return safe(count);
+            case UNIFORM:
+            default:
+                return pushes[random.nextInt(count)];
+        }
+    }
+
+    // Largest drop of the pushed box's distance to its nearest area, ties broken at random
+    private int greedy(int count) {
+        var grid = scratch.getGrid();
+        var heuristic = grid.getHeuristic();
+        int best = -1;
+        int bestGain = Integer.MIN_VALUE;
+        int ties = 0;
+        for (var i = 0; i < count; i++) {
+            int box = pushes[i] / Grid.MOVES.length;
+            int target = grid.neighbour(box, Grid.MOVES[pushes[i] % Grid.MOVES.length]);
+            int gain = heuristic.nearestGoalDistance(box) - heuristic.nearestGoalDistance(target);
+            if (gain > bestGain) {
+                bestGain = gain;
+                best = pushes[i];
+                ties = 1;
+            } else if (gain == bestGain && random.nextInt(++ties) == 0) {
+                best = pushes[i];
+            }
+        }
+        return best;
+    }
+
+    // Random order over the candidates, the first push that leaves no local deadlock wins
+    private int safe(int count) {
+        var grid = scratch.getGrid();
+        for (int left = count; left > 0; left--) {
+            int pick = random.nextInt(left);
+            int push = pushes[pick];
+            pushes[pick] = pushes[left - 1];
+
+            int box = push / Grid.MOVES.length;
+            var direction = Grid.MOVES[push % Grid.MOVES.length];
+            int target = grid.neighbour(box, direction);
+            int player = scratch.getPlayer();
+            scratch.performPush(box, direction);
+            var deadlocked = Deadlocks.isSquareBlock(scratch, target) || Deadlocks.isFrozen(scratch, target);
+            scratch.undoPush(box, direction, player);
+            if (!deadlocked) {
+                return push;
+            }
+        }
+        return -1;
+    }
+
+    private int reward() {
+        var boxes = scratch.getBoxes();
+        int total = boxes.cardinality();
+        if (total == 0) {
+            return MAX_REWARD;
+        }
+        int placed = 0;
+        var grid = scratch.getGrid();
+        for (int box = boxes.nextSetBit(0); box >= 0; box = boxes.nextSetBit(box + 1)) {
+            if (grid.isGoal(box)) {
+                placed++;
+            }
+        }
+        return placed * MAX_REWARD / total;
+    }
+}
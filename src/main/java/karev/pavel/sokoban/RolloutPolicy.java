@@ -0,0 +1,32 @@
+package karev.pavel.sokoban;
+
+import java.util.Locale;
+import java.util.logging.Logger;
+
+public enum RolloutPolicy {
+    // No playout, the leaf is scored by its status alone
+    NONE,
+    // Every legal push is equally likely
+    UNIFORM,
+    // Mostly the push that brings its box closest to an area, a random one with probability epsilon
+    EPSILON_GREEDY,
+    // Uniform, but pushes that freeze a box off an area are rejected
+    DEADLOCK_AWARE;
+
+    static final String PROPERTY = "sokoban.rollout";
+
+    // The sokoban.rollout property, an unknown name falls back to the given policy with a warning
+    static RolloutPolicy fromProperty(RolloutPolicy fallback) {
+        var value = System.getProperty(PROPERTY);
+        if (value == null) {
+            return fallback;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            Logger.getLogger(RolloutPolicy.class.getName())
+                .warning("Unknown " + PROPERTY + " '" + value + "', using " + fallback);
+            return fallback;
+        }
+    }
+}
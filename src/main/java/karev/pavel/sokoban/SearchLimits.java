@@ -0,0 +1,44 @@
+package karev.pavel.sokoban;
+
+import java.time.Duration;
+import java.util.Objects;
+import lombok.Getter;
+
+@Getter
+public class SearchLimits {
+
+    public static final SearchLimits NONE = new SearchLimits(Long.MAX_VALUE, null);
+
+    private final long maxNodes;
+    private final Duration timeout;
+    private final SearchProgress progress;
+
+    public SearchLimits(long maxNodes, Duration timeout) {
+        this(maxNodes, timeout, null);
+    }
+
+    public SearchLimits(long maxNodes, Duration timeout, SearchProgress progress) {
+        this.maxNodes = maxNodes;
+        this.timeout = timeout;
+        this.progress = progress;
+    }
+
+    public boolean isExceeded(long expandedNodes, long startNanos) {
+        if (Objects.nonNull(progress)) {
+            progress.reportExpanded(expandedNodes);
+            if (progress.isCancelled()) {
+                return true;
+            }
+        }
+        if (expandedNodes >= maxNodes) {
+            return true;
+        }
+        return Objects.nonNull(timeout) && System.nanoTime() - startNanos >= timeout.toNanos();
+    }
+
+    public void reportDepth(int depth) {
+        if (Objects.nonNull(progress)) {
+            progress.reportDepth(depth);
+        }
+    }
+}
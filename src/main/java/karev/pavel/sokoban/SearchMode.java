@@ -0,0 +1,8 @@
+package karev.pavel.sokoban;
+
+public enum SearchMode {
+    // Every player step is a move
+    STEP,
+    // Only box pushes are moves, the player walk between them is rebuilt afterwards
+    PUSH
+}
@@ -0,0 +1,46 @@
+package karev.pavel.sokoban;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Live view of a running search shared between the solver threads and the UI.
+ * Solvers publish through SearchLimits, the UI reads it and may cancel.
+ */
+public class SearchProgress {
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong expandedNodes = new AtomicLong();
+    private final AtomicInteger bestDepth = new AtomicInteger();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    void reportExpanded(long nodes) {
+        expandedNodes.accumulateAndGet(nodes, Math::max);
+    }
+
+    void reportDepth(int depth) {
+        bestDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public long getExpandedNodes() {
+        return expandedNodes.get();
+    }
+
+    public int getBestDepth() {
+        return bestDepth.get();
+    }
+
+    public long getNodesPerSecond() {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : expandedNodes.get() * 1_000_000_000L / elapsed;
+    }
+}
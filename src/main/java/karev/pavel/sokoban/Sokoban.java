@@ -3,17 +3,22 @@ package karev.pavel.sokoban;
 import java.awt.EventQueue;
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.file.Paths;
 import javax.swing.JFrame;
 
 public class Sokoban extends JFrame {
 
     public Sokoban() throws IOException, URISyntaxException {
-        initUI();
+        this(null);
     }
 
-    private void initUI() throws IOException, URISyntaxException {
+    public Sokoban(LevelCollection levels) throws IOException, URISyntaxException {
+        initUI(levels);
+    }
+
+    private void initUI(LevelCollection levels) throws IOException, URISyntaxException {
         
-        Board board = new Board();
+        Board board = new Board(levels);
         add(board);
 
         setTitle("Sokoban");
@@ -30,7 +35,13 @@ public class Sokoban extends JFrame {
 
             Sokoban game = null;
             try {
-                game = new Sokoban();
+                // An optional XSB/SOK collection to play instead of the bundled levels
+                var levels = args.length > 0 ? LevelCollection.open(Paths.get(args[0])) : null;
+                if (levels != null && levels.size() == 0) {
+                    System.err.println("No levels found in " + args[0]);
+                    System.exit(2);
+                }
+                game = new Sokoban(levels);
                 game.setVisible(true);
             } catch (IOException | URISyntaxException e) {
                 e.printStackTrace();
@@ -0,0 +1,138 @@
+package karev.pavel.sokoban;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Stack;
+import lombok.Getter;
+
+@Getter
+public class Solution {
+
+    // Player positions one step apart, the first one is the start position
+    private final List<Position> path;
+    // One LURD letter per step, upper case for pushes
+    private final String lurd;
+    private final int pushes;
+    private final long expandedNodes;
+
+    public Solution(List<Position> path, String lurd, int pushes, long expandedNodes) {
+        this.path = path;
+        this.lurd = lurd;
+        this.pushes = pushes;
+        this.expandedNodes = expandedNodes;
+    }
+
+    public static Solution ofSteps(List<Layout> layouts, long expandedNodes) {
+        List<Position> path = new ArrayList<>(layouts.size());
+        var lurd = new StringBuilder();
+        var pushes = 0;
+        for (int i = 0; i < layouts.size(); i++) {
+            path.add(layouts.get(i).getPlayerPosition());
+            if (i == 0) {
+                continue;
+            }
+            boolean push = !layouts.get(i).getBoxes().equals(layouts.get(i - 1).getBoxes());
+            lurd.append(letter(path.get(i - 1), path.get(i), push));
+            if (push) {
+                pushes++;
+            }
+        }
+        return new Solution(path, lurd.toString(), pushes, expandedNodes);
+    }
+
+    /*
+     * Push states are normalized, so the walk between two pushes is rebuilt from
+     * the real start position with Utils.pathFinder.
+     */
+    public static Solution ofPushes(Layout start, List<Layout> layouts, long expandedNodes) {
+        var layout = new Layout(start);
+        var grid = layout.getGrid();
+        List<Position> path = new ArrayList<>();
+        var lurd = new StringBuilder();
+        path.add(layout.getPlayerPosition());
+        for (int i = 1; i < layouts.size(); i++) {
+            var push = layouts.get(i - 1).pushTo(layouts.get(i));
+            var pushFrom = grid.position(grid.neighbour(push.getBox(), push.getDirection().opposite()));
+            for (Position step : Utils.pathFinder(layout.getPlayerPosition(), pushFrom, layout)) {
+                lurd.append(letter(path.get(path.size() - 1), step, false));
+                path.add(step);
+            }
+            layout.performPush(push);
+            lurd.append(letter(path.get(path.size() - 1), layout.getPlayerPosition(), true));
+            path.add(layout.getPlayerPosition());
+        }
+        return new Solution(path, lurd.toString(), layouts.size() - 1, expandedNodes);
+    }
+
+    // Replays stored LURD steps on the level, the case of the letters is not trusted
+    public static Solution ofLurd(Level level, String lurd, long expandedNodes) {
+        var layout = Layout.of(level);
+        var grid = layout.getGrid();
+        List<Position> path = new ArrayList<>(lurd.length() + 1);
+        var replayed = new StringBuilder(lurd.length());
+        var pushes = 0;
+        path.add(layout.getPlayerPosition());
+        for (var i = 0; i < lurd.length(); i++) {
+            var direction = Symmetry.direction(Character.toLowerCase(lurd.charAt(i)));
+            int target = grid.neighbour(layout.getPlayer(), direction);
+            boolean push = layout.isBox(target);
+            if (grid.isWall(target) || push && !layout.isFree(grid.neighbour(target, direction))) {
+                throw new IllegalArgumentException("Step " + i + " of " + lurd + " is blocked");
+            }
+            layout.performMove(direction);
+            replayed.append(letter(path.get(path.size() - 1), layout.getPlayerPosition(), push));
+            path.add(layout.getPlayerPosition());
+            if (push) {
+                pushes++;
+            }
+        }
+        return new Solution(path, replayed.toString(), pushes, expandedNodes);
+    }
+
+    private static char letter(Position from, Position to, boolean push) {
+        char letter;
+        switch (Utils.calcDirection(from, to)) {
+            case UP:
+                letter = 'u';
+                break;
+            case DOWN:
+                letter = 'd';
+                break;
+            case LEFT:
+                letter = 'l';
+                break;
+            case RIGHT:
+                letter = 'r';
+                break;
+            case NONE:
+            default:
+                throw new IllegalArgumentException("Positions are not neighbours: " + from + ", " + to);
+        }
+        return push ? Character.toUpperCase(letter) : letter;
+    }
+
+    public int getMoves() {
+        return path.size() - 1;
+    }
+
+    // The walk up to and including the first push, what a hint shows
+    public Solution untilFirstPush() {
+        int steps = lurd.length();
+        for (var i = 0; i < lurd.length(); i++) {
+            if (Character.isUpperCase(lurd.charAt(i))) {
+                steps = i + 1;
+                break;
+            }
+        }
+        return new Solution(path.subList(0, steps + 1), lurd.substring(0, steps), Math.min(pushes, 1), expandedNodes);
+    }
+
+    // Board pops the next position from the top
+    public Stack<Position> toStack() {
+        Stack<Position> positions = new Stack<>();
+        for (int i = path.size() - 1; i >= 0; i--) {
+            positions.add(path.get(i));
+        }
+        return positions;
+    }
+}
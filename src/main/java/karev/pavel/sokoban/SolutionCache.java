@@ -0,0 +1,242 @@
+package karev.pavel.sokoban;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.SneakyThrows;
+
+/*
+ * Solutions kept on disk between runs, one file per level and solver named
+ * after the SHA-256 of the solver name and Level.canonical, so rotated and
+ * mirrored copies share an entry while solvers never see each other's moves.
+ * Moves are stored in the canonical orientation and mapped back on the way out.
+ *
+ * The directory holds at most maxEntries files, the least recently used is
+ * deleted first, recency survives restarts as the file modification time.
+ * A small in-memory map sits in front of the files. Every hit is replayed on
+ * the level before it is returned, a bad file is dropped and counts as a miss.
+ */
+public class SolutionCache {
+
+    public static final String DIRECTORY_PROPERTY = "sokoban.cache.dir";
+    public static final String ENTRIES_PROPERTY = "sokoban.cache.entries";
+    private static final Logger LOG = Logger.getLogger(SolutionCache.class.getName());
+    private static final int MAGIC = 0x534B4253;
+    private static final byte VERSION = 1;
+    private static final String SUFFIX = ".sol";
+    private static final int DEFAULT_ENTRIES = 10_000;
+    private static final int MEMORY_ENTRIES = 256;
+
+    private final Path directory;
+    private final int maxEntries;
+    private final Map<String, String> memory;
+    // Keys of the files on disk, least recently used first
+    private final LinkedHashMap<String, Boolean> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    public SolutionCache(Path directory, int maxEntries) throws IOException {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > Math.min(MEMORY_ENTRIES, maxEntries);
+            }
+        };
+        Files.createDirectories(directory);
+        List<Path> existing;
+        try (Stream<Path> list = Files.list(directory)) {
+            existing = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                .sorted(Comparator.comparing(SolutionCache::modified))
+                .collect(Collectors.toList());
+        }
+        existing.forEach(path -> files.put(key(path), Boolean.TRUE));
+        evict();
+    }
+
+    // Holds up to sokoban.cache.entries files
+    public static SolutionCache open(Path directory) throws IOException {
+        return new SolutionCache(directory, Integer.getInteger(ENTRIES_PROPERTY, DEFAULT_ENTRIES));
+    }
+
+    // sokoban.cache.dir, by default ~/.sokoban/solutions
+    public static SolutionCache openDefault() throws IOException {
+        var directory = System.getProperty(DIRECTORY_PROPERTY);
+        return open(directory == null
+            ? Paths.get(System.getProperty("user.home"), ".sokoban", "solutions")
+            : Paths.get(directory));
+    }
+
+    public Optional<Solution> get(Level level, String solver) {
+        var canonical = level.canonical();
+        var key = hash(solver + '\n' + canonical.getText());
+        var stored = load(key);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        try {
+            var solution = Solution.ofLurd(level, canonical.toLevel(stored), 0);
+            if (solves(level, solution)) {
+                return Optional.of(solution);
+            }
+        } catch (IllegalArgumentException e) {
+            LOG.log(java.util.logging.Level.FINE, "Cached solution does not replay", e);
+        }
+        remove(key);
+        return Optional.empty();
+    }
+
+    // A stored solution with fewer pushes, or as many pushes and fewer moves, is kept
+    public void put(Level level, String solver, Solution solution) {
+        var stored = get(level, solver);
+        if (stored.isPresent() && !isBetter(solution, stored.get())) {
+            return;
+        }
+        var canonical = level.canonical();
+        var key = hash(solver + '\n' + canonical.getText());
+        var lurd = canonical.fromLevel(solution.getLurd());
+        synchronized (this) {
+            memory.put(key, lurd);
+            files.put(key, Boolean.TRUE);
+        }
+        try {
+            var buffer = ByteBuffer.allocate(Integer.BYTES + 1 + BinaryLevels.solutionBytes(lurd));
+            buffer.putInt(MAGIC).put(VERSION);
+            BinaryLevels.writeSolution(buffer, lurd);
+            var temporary = Files.createTempFile(directory, key, ".tmp");
+            Files.write(temporary, buffer.array());
+            Files.move(temporary, file(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.log(java.util.logging.Level.WARNING, "Cannot store solution " + key, e);
+        }
+        evict();
+    }
+
+    private static boolean isBetter(Solution solution, Solution stored) {
+        if (solution.getPushes() != stored.getPushes()) {
+            return solution.getPushes() < stored.getPushes();
+        }
+        return solution.getMoves() < stored.getMoves();
+    }
+
+    public synchronized int size() {
+        return files.size();
+    }
+
+    private String load(String key) {
+        String remembered;
+        synchronized (this) {
+            remembered = memory.get(key);
+            if (files.get(key) == null && remembered == null) {
+                return null;
+            }
+        }
+        if (remembered != null) {
+            touch(key);
+            return remembered;
+        }
+        try {
+            var buffer = ByteBuffer.wrap(Files.readAllBytes(file(key)));
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                return null;
+            }
+            var lurd = BinaryLevels.readSteps(buffer);
+            touch(key);
+            synchronized (this) {
+                memory.put(key, lurd);
+            }
+            return lurd;
+        } catch (IOException | RuntimeException e) {
+            LOG.log(java.util.logging.Level.FINE, "Cannot read cached solution " + key, e);
+            return null;
+        }
+    }
+
+    // Memory hits are recorded on disk too, otherwise the hottest entries look oldest after a restart
+    private void touch(String key) {
+        try {
+            Files.setLastModifiedTime(file(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOG.log(java.util.logging.Level.FINE, "Cannot touch cached solution " + key, e);
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this) {
+            memory.remove(key);
+            files.remove(key);
+        }
+        delete(key);
+    }
+
+    private void evict() {
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            var iterator = files.keySet().iterator();
+            while (files.size() - evicted.size() > maxEntries && iterator.hasNext()) {
+                var key = iterator.next();
+                evicted.add(key);
+                memory.remove(key);
+            }
+            evicted.forEach(files::remove);
+        }
+        evicted.forEach(this::delete);
+    }
+
+    private void delete(String key) {
+        try {
+            Files.deleteIfExists(file(key));
+        } catch (IOException e) {
+            LOG.log(java.util.logging.Level.FINE, "Cannot delete cached solution " + key, e);
+        }
+    }
+
+    private Path file(String key) {
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private static String key(Path file) {
+        var name = file.getFileName().toString();
+        return name.substring(0, name.length() - SUFFIX.length());
+    }
+
+    private static FileTime modified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static boolean solves(Level level, Solution solution) {
+        var layout = Layout.of(level);
+        for (var i = 0; i < solution.getLurd().length(); i++) {
+            layout.performMove(Symmetry.direction(Character.toLowerCase(solution.getLurd().charAt(i))));
+        }
+        return layout.isCompleted();
+    }
+
+    @SneakyThrows
+    private static String hash(String text) {
+        var digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.ISO_8859_1));
+        var hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit(b >> 4 & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package karev.pavel.sokoban;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// Committed once per solve, only recorded while a JFR recording has it enabled
+@Name("karev.pavel.sokoban.Solve")
+@Label("Sokoban Solve")
+@Category("Sokoban")
+@Description("One run of a solver over a level")
+class SolveEvent extends Event {
+
+    @Label("Solver")
+    String solver;
+
+    @Label("Solved")
+    boolean solved;
+
+    @Label("Expanded Nodes")
+    long expandedNodes;
+
+    @Label("Pushes")
+    int pushes;
+
+    @Label("Moves")
+    int moves;
+}
@@ -0,0 +1,16 @@
+package karev.pavel.sokoban;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+public interface Solver {
+
+    Optional<Solution> solve(Level level);
+
+    // The level is copied up front so the caller may keep using its own instance
+    default CompletableFuture<Optional<Solution>> solveAsync(Level level, Executor executor) {
+        var copy = new Level(level);
+        return CompletableFuture.supplyAsync(() -> solve(copy), executor);
+    }
+}
@@ -0,0 +1,245 @@
+package karev.pavel.sokoban;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+import lombok.SneakyThrows;
+
+/*
+ * Process-wide search counters shared by every solver. They are published as
+ * the karev.pavel.sokoban:type=SolverMetrics MXBean and, when the
+ * sokoban.metrics.log property holds a period in seconds, as a log line.
+ * Solves are also committed as SolveEvent for JFR recordings.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+
+    public enum Phase {
+        SELECTION,
+        EXPANSION,
+        SIMULATION,
+        BACKPROPAGATION
+    }
+
+    private static final Logger LOG = Logger.getLogger(SolverMetrics.class.getName());
+    private static final String OBJECT_NAME = "karev.pavel.sokoban:type=SolverMetrics";
+    private static final String LOG_PERIOD_PROPERTY = "sokoban.metrics.log";
+    private static final int DEPTH_BUCKETS = 16;
+
+    private static final SolverMetrics GLOBAL = create();
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solved = new LongAdder();
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder transpositionHits = new LongAdder();
+    private final LongAdder deadlocksPruned = new LongAdder();
+    private final LongAdder nodesCreated = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder[] depthHistogram = new LongAdder[DEPTH_BUCKETS];
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder[] phaseCounts = new LongAdder[Phase.values().length];
+    private volatile long resetNanos;
+    private volatile long resetHeap;
+
+    SolverMetrics() {
+        for (var i = 0; i < DEPTH_BUCKETS; i++) {
+            depthHistogram[i] = new LongAdder();
+        }
+        for (var i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+            phaseCounts[i] = new LongAdder();
+        }
+        reset();
+    }
+
+    public static SolverMetrics global() {
+        return GLOBAL;
+    }
+
+    @SneakyThrows
+    private static SolverMetrics create() {
+        var metrics = new SolverMetrics();
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName(OBJECT_NAME);
+        if (!server.isRegistered(name)) {
+            server.registerMBean(metrics, name);
+        }
+        long period = Long.getLong(LOG_PERIOD_PROPERTY, 0);
+        if (period > 0) {
+            metrics.startLogging(Duration.ofSeconds(period));
+        }
+        return metrics;
+    }
+
+    public void startLogging(Duration period) {
+        var scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "solver-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> LOG.info(this::toString), period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    SolveEvent solveStarted() {
+        solves.increment();
+        var event = new SolveEvent();
+        event.begin();
+        return event;
+    }
+
+    void solveFinished(SolveEvent event, String solver, Optional<Solution> solution) {
+        solution.ifPresent(found -> solved.increment());
+        event.end();
+        if (event.shouldCommit()) {
+            event.solver = solver;
+            event.solved = solution.isPresent();
+            solution.ifPresent(found -> {
+                event.expandedNodes = found.getExpandedNodes();
+                event.pushes = found.getPushes();
+                event.moves = found.getMoves();
+            });
+            event.commit();
+        }
+    }
+
+    void nodeExpanded() {
+        expandedNodes.increment();
+    }
+
+    void nodeCreated() {
+        nodesCreated.increment();
+    }
+
+    void transpositionHit() {
+        transpositionHits.increment();
+    }
+
+    void deadlockPruned() {
+        deadlocksPruned.increment();
+    }
+
+    void depth(int depth) {
+        maxDepth.accumulateAndGet(depth, Math::max);
+        int bucket = 32 - Integer.numberOfLeadingZeros(depth);
+        depthHistogram[Math.min(bucket, DEPTH_BUCKETS - 1)].increment();
+    }
+
+    void phase(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+        phaseCounts[phase.ordinal()].increment();
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolved() {
+        return solved.sum();
+    }
+
+    @Override
+    public long getExpandedNodes() {
+        return expandedNodes.sum();
+    }
+
+    @Override
+    public long getTranspositionHits() {
+        return transpositionHits.sum();
+    }
+
+    @Override
+    public long getDeadlocksPruned() {
+        return deadlocksPruned.sum();
+    }
+
+    @Override
+    public long getNodesPerSecond() {
+        long elapsed = System.nanoTime() - resetNanos;
+        return elapsed <= 0 ? 0 : getExpandedNodes() * 1_000_000_000L / elapsed;
+    }
+
+    @Override
+    public int getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    // Bucket i counts depths in [2^(i-1), 2^i), bucket 0 counts the root
+    @Override
+    public long[] getDepthHistogram() {
+        var answer = new long[DEPTH_BUCKETS];
+        for (var i = 0; i < DEPTH_BUCKETS; i++) {
+            answer[i] = depthHistogram[i].sum();
+        }
+        return answer;
+    }
+
+    // Heap growth since the last reset spread over the nodes created, a rough figure between collections
+    @Override
+    public long getBytesPerNode() {
+        long nodes = nodesCreated.sum();
+        long grown = usedHeap() - resetHeap;
+        return nodes == 0 || grown <= 0 ? 0 : grown / nodes;
+    }
+
+    private double meanMicros(Phase phase) {
+        long count = phaseCounts[phase.ordinal()].sum();
+        return count == 0 ? 0 : phaseNanos[phase.ordinal()].sum() / 1000.0 / count;
+    }
+
+    @Override
+    public double getMeanSelectionMicros() {
+        return meanMicros(Phase.SELECTION);
+    }
+
+    @Override
+    public double getMeanExpansionMicros() {
+        return meanMicros(Phase.EXPANSION);
+    }
+
+    @Override
+    public double getMeanSimulationMicros() {
+        return meanMicros(Phase.SIMULATION);
+    }
+
+    @Override
+    public double getMeanBackpropagationMicros() {
+        return meanMicros(Phase.BACKPROPAGATION);
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : new LongAdder[] {solves, solved, expandedNodes, transpositionHits, deadlocksPruned, nodesCreated}) {
+            adder.reset();
+        }
+        for (var i = 0; i < DEPTH_BUCKETS; i++) {
+            depthHistogram[i].reset();
+        }
+        for (var i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i].reset();
+            phaseCounts[i].reset();
+        }
+        maxDepth.set(0);
+        resetNanos = System.nanoTime();
+        resetHeap = usedHeap();
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("solves=%d solved=%d expanded=%d nodes/s=%d tt-hits=%d deadlocks=%d max-depth=%d"
+                + " bytes/node=%d selection=%.1fus expansion=%.1fus simulation=%.1fus backpropagation=%.1fus",
+            getSolves(), getSolved(), getExpandedNodes(), getNodesPerSecond(), getTranspositionHits(),
+            getDeadlocksPruned(), getMaxDepth(), getBytesPerNode(), getMeanSelectionMicros(),
+            getMeanExpansionMicros(), getMeanSimulationMicros(), getMeanBackpropagationMicros());
+    }
+}
@@ -0,0 +1,32 @@
+package karev.pavel.sokoban;
+
+public interface SolverMetricsMXBean {
+
+    long getSolves();
+
+    long getSolved();
+
+    long getExpandedNodes();
+
+    long getTranspositionHits();
+
+    long getDeadlocksPruned();
+
+    long getNodesPerSecond();
+
+    int getMaxDepth();
+
+    long[] getDepthHistogram();
+
+    long getBytesPerNode();
+
+    double getMeanSelectionMicros();
+
+    double getMeanExpansionMicros();
+
+    double getMeanSimulationMicros();
+
+    double getMeanBackpropagationMicros();
+
+    void reset();
+}
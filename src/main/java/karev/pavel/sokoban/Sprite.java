@@ -0,0 +1,33 @@
+package karev.pavel.sokoban;
+
+import java.awt.Image;
+import javax.swing.ImageIcon;
+
+// Every sprite is decoded once per process on first use and shared by all actors
+public enum Sprite {
+    WALL("wall.png"),
+    BAGGAGE("baggage.png"),
+    AREA("area.png"),
+    PLAYER("sokoban.png");
+
+    private final String resource;
+    private volatile Image image;
+
+    Sprite(String resource) {
+        this.resource = resource;
+    }
+
+    public Image getImage() {
+        var loaded = image;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = image;
+                if (loaded == null) {
+                    loaded = new ImageIcon(ClassLoader.getSystemResource(resource)).getImage();
+                    image = loaded;
+                }
+            }
+        }
+        return loaded;
+    }
+}
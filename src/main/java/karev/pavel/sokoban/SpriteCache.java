@@ -0,0 +1,64 @@
+package karev.pavel.sokoban;
+
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.Data;
+
+/*
+ * Scaled sprites keyed by (sprite, zoom). Each tier is rendered once on a
+ * background thread and shared by every actor, least recently used tiers are
+ * dropped when the cache is full.
+ */
+public class SpriteCache {
+
+    private static final ExecutorService SCALER = Executors.newSingleThreadExecutor(runnable -> {
+        var thread = new Thread(runnable, "sprite-scaler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<Key, CompletableFuture<Image>> tiers;
+
+    public SpriteCache(int capacity) {
+        this.tiers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, CompletableFuture<Image>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized CompletableFuture<Image> scaled(Sprite sprite, double zoom) {
+        var key = new Key(sprite, zoom);
+        var tier = tiers.get(key);
+        if (Objects.isNull(tier)) {
+            tier = CompletableFuture.supplyAsync(() -> scale(sprite.getImage(), zoom), SCALER);
+            tiers.put(key, tier);
+        }
+        return tier;
+    }
+
+    private static Image scale(Image image, double zoom) {
+        int width = (int) (image.getWidth(null) * zoom);
+        int height = (int) (image.getHeight(null) * zoom);
+        var scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        var graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    @Data
+    private static class Key {
+        private final Sprite sprite;
+        private final double zoom;
+    }
+}
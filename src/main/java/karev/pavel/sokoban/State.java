@@ -1,53 +1,108 @@
 package karev.pavel.sokoban;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import karev.pavel.sokoban.Level.Status;
+import karev.pavel.sokoban.Utils.Direction;
 import lombok.Getter;
 import lombok.Setter;
 
 @Setter
 @Getter
 public class State {
-    private Level level;
-    private int visitCount;
-    private Status status;
-    int score;
+    private Layout layout;
+    // Shared between solver threads when several of them grow the same tree
+    private final AtomicInteger visitCount = new AtomicInteger();
+    private final AtomicInteger score = new AtomicInteger();
+    private volatile Status status;
 
     public State() {
 
     }
 
     public State(State state) {
-        this.level = new Level(state.getLevel());
-        this.visitCount = state.getVisitCount();
+        this.layout = new Layout(state.getLayout());
+        this.visitCount.set(state.getVisitCount());
         this.status = state.status;
-        this.score = state.score;
+        this.score.set(state.getScore());
     }
 
     public State(Level lvl) {
-        this.level = new Level(lvl);
+        this.layout = Layout.of(lvl);
+    }
+
+    public State(Layout layout) {
+        this.layout = layout;
+    }
+
+    public List<State> getAllPossibleStates(SearchMode searchMode) {
+        return searchMode == SearchMode.PUSH ? getAllPushStates() : getAllPossibleStates();
+    }
+
+    public List<State> getAllPushStates() {
+        List<State> possibleStates = new ArrayList<>();
+        this.layout.availablePushes().forEach(push -> {
+            var newLayout = new Layout(this.layout);
+            newLayout.performPush(push);
+            var reachable = newLayout.reachable();
+            int movedBox = newLayout.getGrid().neighbour(push.getBox(), push.getDirection());
+            if (Deadlocks.isDeadlocked(newLayout, movedBox, reachable)) {
+                SolverMetrics.global().deadlockPruned();
+                return;
+            }
+            newLayout.normalize(reachable);
+            possibleStates.add(new State(newLayout));
+        });
+        return possibleStates;
     }
 
     public List<State> getAllPossibleStates() {
         List<State> possibleStates = new ArrayList<>();
-        Collection<Position> availableMoves = this.level.availableMoves();
-        availableMoves.forEach(p -> {
-            var newState = new State(this.level);
-            newState.getLevel().performMove(p);
-            possibleStates.add(newState);
+        List<Direction> availableMoves = this.layout.availableMoves();
+        availableMoves.forEach(direction -> {
+            var newLayout = new Layout(this.layout);
+            newLayout.performMove(direction);
+            int target = newLayout.getPlayer();
+            if (this.layout.isBox(target)) {
+                int movedBox = newLayout.getGrid().neighbour(target, direction);
+                if (Deadlocks.isDeadlocked(newLayout, movedBox, newLayout.reachable())) {
+                    SolverMetrics.global().deadlockPruned();
+                    return;
+                }
+            }
+            possibleStates.add(new State(newLayout));
         });
         return possibleStates;
     }
 
 
+    public int getVisitCount() {
+        return visitCount.get();
+    }
+
+    public void setVisitCount(int visitCount) {
+        this.visitCount.set(visitCount);
+    }
+
+    public int getScore() {
+        return score.get();
+    }
+
+    public void setScore(int score) {
+        this.score.set(score);
+    }
+
     void incrementVisit() {
-        this.visitCount++;
+        this.visitCount.incrementAndGet();
+    }
+
+    void addVirtualLoss(int loss) {
+        this.visitCount.addAndGet(loss);
     }
 
-    Level getLevel() {
-        return level;
+    void removeVirtualLoss(int loss) {
+        this.visitCount.addAndGet(-loss);
     }
 
 /*    void randomPlay() {
@@ -59,14 +114,15 @@ public class State {
 
 
     public void addScore(int score) {
-        this.score += score;
+        this.score.accumulateAndGet(score, (current, delta) ->
+            (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, (long) current + delta)));
     }
 
     public boolean hasCompletedBaggages() {
-        return this.level.anyCompleted();
+        return this.layout.anyCompleted();
     }
 
     public boolean isCompleted() {
-        return this.level.isCompleted();
+        return this.layout.isCompleted();
     }
 }
@@ -0,0 +1,141 @@
+package karev.pavel.sokoban;
+
+import karev.pavel.sokoban.Utils.Direction;
+
+/*
+ * The 8 rotations and mirror images of a rectangular board. Each one is a
+ * transpose followed by optional flips of the rows and the columns, a board
+ * of height h and width w becomes w by h when it is transposed.
+ */
+public enum Symmetry {
+    IDENTITY(false, false, false),
+    ROTATE_90(true, false, true),
+    ROTATE_180(false, true, true),
+    ROTATE_270(true, true, false),
+    FLIP_HORIZONTAL(false, false, true),
+    FLIP_VERTICAL(false, true, false),
+    TRANSPOSE(true, false, false),
+    ANTI_TRANSPOSE(true, true, true);
+
+    private final boolean transpose;
+    private final boolean flipRows;
+    private final boolean flipColumns;
+
+    Symmetry(boolean transpose, boolean flipRows, boolean flipColumns) {
+        this.transpose = transpose;
+        this.flipRows = flipRows;
+        this.flipColumns = flipColumns;
+    }
+
+    public boolean isTranspose() {
+        return transpose;
+    }
+
+    public int height(int height, int width) {
+        return transpose ? width : height;
+    }
+
+    public int width(int height, int width) {
+        return transpose ? height : width;
+    }
+
+    public int x(int x, int y, int height, int width) {
+        int tx = transpose ? y : x;
+        return flipRows ? height(height, width) - 1 - tx : tx;
+    }
+
+    public int y(int x, int y, int height, int width) {
+        int ty = transpose ? x : y;
+        return flipColumns ? width(height, width) - 1 - ty : ty;
+    }
+
+    public Symmetry inverse() {
+        switch (this) {
+            case ROTATE_90:
+                return ROTATE_270;
+            case ROTATE_270:
+                return ROTATE_90;
+            default:
+                return this;
+        }
+    }
+
+    public Direction map(Direction direction) {
+        int dx = 0;
+        int dy = 0;
+        switch (direction) {
+            case UP:
+                dx = -1;
+                break;
+            case DOWN:
+                dx = 1;
+                break;
+            case LEFT:
+                dy = -1;
+                break;
+            case RIGHT:
+                dy = 1;
+                break;
+            case NONE:
+            default:
+                return Direction.NONE;
+        }
+        if (transpose) {
+            int swap = dx;
+            dx = dy;
+            dy = swap;
+        }
+        if (flipRows) {
+            dx = -dx;
+        }
+        if (flipColumns) {
+            dy = -dy;
+        }
+        if (dx != 0) {
+            return dx < 0 ? Direction.UP : Direction.DOWN;
+        }
+        return dy < 0 ? Direction.LEFT : Direction.RIGHT;
+    }
+
+    // Keeps the case of every letter, pushes stay pushes
+    public String map(String lurd) {
+        var answer = new StringBuilder(lurd.length());
+        for (var i = 0; i < lurd.length(); i++) {
+            char c = lurd.charAt(i);
+            char letter = letter(map(direction(Character.toLowerCase(c))));
+            answer.append(Character.isUpperCase(c) ? Character.toUpperCase(letter) : letter);
+        }
+        return answer.toString();
+    }
+
+    static Direction direction(char letter) {
+        switch (letter) {
+            case 'u':
+                return Direction.UP;
+            case 'd':
+                return Direction.DOWN;
+            case 'l':
+                return Direction.LEFT;
+            case 'r':
+                return Direction.RIGHT;
+            default:
+                throw new IllegalArgumentException("Not a LURD step: " + letter);
+        }
+    }
+
+    static char letter(Direction direction) {
+        switch (direction) {
+            case UP:
+                return 'u';
+            case DOWN:
+                return 'd';
+            case LEFT:
+                return 'l';
+            case RIGHT:
+                return 'r';
+            case NONE:
+            default:
+                throw new IllegalArgumentException("No LURD step for " + direction);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package karev.pavel.sokoban;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class TranspositionTable {
+
+    private final Map<Long, Node> nodes;
+
+    public TranspositionTable(int capacity) {
+        this.nodes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized Node get(Layout layout) {
+        var node = nodes.get(layout.getHash());
+        if (node == null || !node.getState().getLayout().equals(layout)) {
+            return null;
+        }
+        return node;
+    }
+
+    public synchronized void put(Node node) {
+        nodes.put(node.getState().getLayout().getHash(), node);
+    }
+
+    public synchronized Node putIfAbsent(Node node) {
+        var existing = get(node.getState().getLayout());
+        if (existing == null) {
+            put(node);
+        }
+        return existing;
+    }
+
+    // Drops every node the filter rejects, the table itself is kept
+    public synchronized void retainIf(Predicate<Node> filter) {
+        nodes.values().removeIf(filter.negate());
+    }
+
+    public synchronized int size() {
+        return nodes.size();
+    }
+}
@@ -2,6 +2,7 @@ package karev.pavel.sokoban;
 
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.function.Predicate;
 
 public class UCT {
 
@@ -18,4 +19,31 @@ public class UCT {
             node.getChildArray(),
             Comparator.comparing(c -> uctValue(parentVisit, c.getState().getScore(), c.getState().getVisitCount())));
     }
+
+    static Node findBestNodeWithUCT(Node node, Predicate<Node> filter) {
+        int parentVisit = node.getState().getVisitCount();
+        return node.getChildArray()
+            .stream()
+            .filter(filter)
+            .max(Comparator.comparing(c -> uctValue(parentVisit, c.getState().getScore(), c.getState().getVisitCount())))
+            .orElse(null);
+    }
+
+    // Children of an arena node that are known to be stuck are never selected, NONE when no child is left
+    static int findBestNodeWithUCT(ArenaTree tree, int node) {
+        int parentVisit = tree.getVisits(node);
+        int best = ArenaTree.NONE;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = tree.getFirstChild(node); child != ArenaTree.NONE; child = tree.getNextSibling(child)) {
+            if (tree.isStuck(child)) {
+                continue;
+            }
+            double value = uctValue(parentVisit, tree.getScore(child), tree.getVisits(child));
+            if (value > bestValue) {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
 }
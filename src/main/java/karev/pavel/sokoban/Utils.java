@@ -1,6 +1,7 @@
 package karev.pavel.sokoban;
 
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
@@ -44,12 +45,63 @@ public class Utils {
         return path;
     }
 
+    public static List<Position> pathFinder(Position start, Position destination, Layout layout) {
+        var grid = layout.getGrid();
+        int from = grid.index(start);
+        int to = grid.index(destination);
+        Queue<Integer> queue = new ArrayDeque<>();
+        queue.add(from);
+
+        var cameFrom = new int[grid.size()];
+        Arrays.fill(cameFrom, -1);
+        cameFrom[from] = from;
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            if (current == to) {
+                break;
+            }
+            for (Direction direction : Grid.MOVES) {
+                int next = grid.neighbour(current, direction);
+                if (layout.isFree(next) && cameFrom[next] < 0) {
+                    queue.add(next);
+                    cameFrom[next] = current;
+                }
+            }
+        }
+
+        if (cameFrom[to] < 0) {
+            return Collections.emptyList();
+        }
+
+        var path = new LinkedList<Position>();
+        for (int current = to; current != from; current = cameFrom[current]) {
+            path.addFirst(grid.position(current));
+        }
+        return path;
+    }
+
     enum Direction {
         UP,
         DOWN,
         LEFT,
         RIGHT,
-        NONE
+        NONE;
+
+        Direction opposite() {
+            switch (this) {
+                case UP:
+                    return DOWN;
+                case DOWN:
+                    return UP;
+                case LEFT:
+                    return RIGHT;
+                case RIGHT:
+                    return LEFT;
+                case NONE:
+                default:
+                    return NONE;
+            }
+        }
     }
 
     public static Collision directionToCollision(Direction direction) {
@@ -68,6 +120,21 @@ public class Utils {
         }
     }
 
+    public static Direction collisionToDirection(Collision collision) {
+        switch (collision) {
+            case TOP_COLLISION:
+                return Direction.UP;
+            case BOTTOM_COLLISION:
+                return Direction.DOWN;
+            case LEFT_COLLISION:
+                return Direction.LEFT;
+            case RIGHT_COLLISION:
+                return Direction.RIGHT;
+            default:
+                return Direction.NONE;
+        }
+    }
+
     public static Direction calcDirection(Position playerPosition, Position nextPosition) {
         int deltaX = playerPosition.x - nextPosition.x;
         int deltaY = playerPosition.y - nextPosition.y;
@@ -1,7 +1,5 @@
 package karev.pavel.sokoban;
 
-import java.awt.Image;
-import javax.swing.ImageIcon;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,21 +7,11 @@ import lombok.Setter;
 @Setter
 public class Wall extends Actor {
 
-    private Image image;
-
     public Wall(Wall wall) {
-        super(wall.x(), wall.y());
-        initWall();
+        super(wall.x(), wall.y(), Sprite.WALL);
     }
 
     public Wall(int x, int y) {
-        super(x, y);
-        initWall();
-    }
-
-    private void initWall() {
-        var icon = new ImageIcon(ClassLoader.getSystemResource("wall.png"));
-        image = icon.getImage();
-        setOriginalImage(image);
+        super(x, y, Sprite.WALL);
     }
 }